@@ -0,0 +1,47 @@
+package com.group11.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncoderBenchmark {
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(SecurityConfigurer.BCRYPT_STRENGTH);
+        encodedPassword = passwordEncoder.encode("admin");
+    }
+
+    /**
+     * Measures hashing a password as done on register and password updates.
+     *
+     * @return Encoded password
+     */
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("admin");
+    }
+
+    /**
+     * Measures checking a password against its hash as done on every login.
+     *
+     * @return Whether password matches or not
+     */
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("admin", encodedPassword);
+    }
+}
@@ -0,0 +1,98 @@
+package com.group11.server.dao;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group11.server.CborConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameDaoSerializationBenchmark {
+
+    /**
+     * Number of leaderboard rows in the serialized list
+     */
+    @Param({"10", "100", "1000"})
+    public int pageLimit;
+
+    private static final TypeReference<List<GameDao>> GAME_DAO_LIST = new TypeReference<List<GameDao>>() {};
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborObjectMapper;
+    private List<GameDao> gameDaoList;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same builder Spring MVC uses for its JSON message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborObjectMapper = CborConfig.cborObjectMapper(Jackson2ObjectMapperBuilder.json());
+        gameDaoList = new ArrayList<>();
+        for (int i = 0; i < pageLimit; i++) {
+            GameDao gameDao = new GameDao();
+            gameDao.setUsername("player" + i);
+            gameDao.setScore(100_000 - i);
+            gameDaoList.add(gameDao);
+        }
+        json = objectMapper.writeValueAsBytes(gameDaoList);
+        cbor = cborObjectMapper.writeValueAsBytes(gameDaoList);
+    }
+
+    /**
+     * Measures serializing a leaderboard page into a JSON response body.
+     *
+     * @return Encoded JSON
+     * @throws Exception *
+     */
+    @Benchmark
+    public byte[] writeJson() throws Exception {
+        return objectMapper.writeValueAsBytes(gameDaoList);
+    }
+
+    /**
+     * Measures serializing a leaderboard page into a CBOR response body.
+     *
+     * @return Encoded CBOR
+     * @throws Exception *
+     */
+    @Benchmark
+    public byte[] writeCbor() throws Exception {
+        return cborObjectMapper.writeValueAsBytes(gameDaoList);
+    }
+
+    /**
+     * Measures a client parsing a JSON leaderboard page.
+     *
+     * @return Decoded list
+     * @throws Exception *
+     */
+    @Benchmark
+    public List<GameDao> readJson() throws Exception {
+        return objectMapper.readValue(json, GAME_DAO_LIST);
+    }
+
+    /**
+     * Measures a client parsing a CBOR leaderboard page.
+     *
+     * @return Decoded list
+     * @throws Exception *
+     */
+    @Benchmark
+    public List<GameDao> readCbor() throws Exception {
+        return cborObjectMapper.readValue(cbor, GAME_DAO_LIST);
+    }
+}
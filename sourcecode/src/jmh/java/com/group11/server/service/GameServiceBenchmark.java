@@ -0,0 +1,49 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameServiceBenchmark {
+
+    /**
+     * Number of leaderboard rows returned by the query
+     */
+    @Param({"10", "100", "1000"})
+    public int pageLimit;
+
+    private List<Object[]> queryResultList;
+
+    @Setup
+    public void setUp() {
+        queryResultList = new ArrayList<>();
+        for (int i = 0; i < pageLimit; i++) {
+            // Native leaderboard queries return SUM(score) as BigDecimal
+            queryResultList.add(new Object[]{"player" + i, BigDecimal.valueOf(100_000L - i)});
+        }
+    }
+
+    /**
+     * Measures converting native leaderboard query rows into GameDao objects.
+     *
+     * @return A list of username score pairs
+     */
+    @Benchmark
+    public List<GameDao> convertToUsernameScorePairList() {
+        return GameServiceImpl.convertToUsernameScorePairList(queryResultList);
+    }
+}
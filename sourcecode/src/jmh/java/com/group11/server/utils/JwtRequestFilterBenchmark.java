@@ -0,0 +1,77 @@
+package com.group11.server.utils;
+
+import com.group11.server.service.UsersDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtRequestFilterBenchmark {
+
+    /**
+     * Whether the benchmarked request carries a valid bearer token or no Authorization header at all
+     */
+    @Param({"true", "false"})
+    public boolean authenticated;
+
+    private JwtRequestFilter jwtRequestFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        UserDetails userDetails = new User("admin", "admin", new ArrayList<>());
+        JwtUtil jwtUtil = new JwtUtil();
+
+        // Player lookup is replaced with a constant user so that only the filter itself is measured
+        UsersDetailsService usersDetailsService = new UsersDetailsService(null, Set.of()) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return userDetails;
+            }
+        };
+
+        jwtRequestFilter = new JwtRequestFilter();
+        ReflectionTestUtils.setField(jwtRequestFilter, "usersDetailsService", usersDetailsService);
+        ReflectionTestUtils.setField(jwtRequestFilter, "jwtTokenUtil", jwtUtil);
+        ReflectionTestUtils.setField(jwtRequestFilter, "meterRegistry", new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/api/leaderboard_weekly");
+        if (authenticated) {
+            request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(userDetails));
+        }
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> { };
+    }
+
+    /**
+     * Measures a single pass of the Jwt filter over a request.
+     *
+     * @throws Exception *
+     */
+    @Benchmark
+    public void doFilterInternal() throws Exception {
+        jwtRequestFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,108 @@
+package com.group11.server.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * API endpoints that the load generator drives, each able to build a request for a given run configuration.
+ */
+public enum Endpoint {
+
+    LOGIN("login") {
+        @Override
+        HttpRequest.Builder builder(LoadTestOptions options, Random random) {
+            String body = "{\"username\":\"" + options.getUsername() + "\",\"password\":\"" + options.getPassword() + "\"}";
+            return HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+
+    GAME("game") {
+        @Override
+        HttpRequest.Builder builder(LoadTestOptions options, Random random) {
+            return HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/game?playerID=" + options.getPlayerId()
+                            + "&score=" + random.nextInt(options.getMaxScore() + 1)))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+        }
+    },
+
+    LEADERBOARD_WEEKLY("leaderboard_weekly") {
+        @Override
+        HttpRequest.Builder builder(LoadTestOptions options, Random random) {
+            return HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/leaderboard_weekly?pageLimit=" + options.getPageLimit()))
+                    .GET();
+        }
+    },
+
+    LEADERBOARD_MONTHLY("leaderboard_monthly") {
+        @Override
+        HttpRequest.Builder builder(LoadTestOptions options, Random random) {
+            return HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/leaderboard_monthly?pageLimit=" + options.getPageLimit()))
+                    .GET();
+        }
+    },
+
+    PLAYER("player") {
+        @Override
+        HttpRequest.Builder builder(LoadTestOptions options, Random random) {
+            return HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/player?id=" + options.getPlayerId()))
+                    .GET();
+        }
+    };
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    /**
+     * This method creates the endpoint specific part of the request.
+     *
+     * @param options Options of the current run
+     * @param random  Random source for request parameters
+     * @return Request builder without common headers
+     */
+    abstract HttpRequest.Builder builder(LoadTestOptions options, Random random);
+
+    /**
+     * This method creates a complete request, adding the bearer token when one is given.
+     *
+     * @param options Options of the current run
+     * @param random  Random source for request parameters
+     * @param token   Jwt token obtained at the start of the run, may be null
+     * @return Request ready to be sent
+     */
+    public HttpRequest request(LoadTestOptions options, Random random, String token) {
+        HttpRequest.Builder builder = builder(options, random).timeout(Duration.ofSeconds(options.getTimeoutSeconds()));
+        if (token != null && this != LOGIN) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Name of the endpoint as used in workload mix and reports
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * This method finds the endpoint with given workload mix name.
+     *
+     * @param key Name of the endpoint
+     * @return Endpoint with the given name
+     */
+    public static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in workload mix: " + key);
+    }
+}
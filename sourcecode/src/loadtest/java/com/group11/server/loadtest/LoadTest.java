@@ -0,0 +1,144 @@
+package com.group11.server.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the API.
+ * Requests are issued on a fixed schedule regardless of how fast the server answers, and every latency is measured
+ * from the time the request was scheduled to be sent rather than the time it was actually sent.
+ * This way a stalled server shows up in the percentiles instead of silently lowering the offered load
+ * (coordinated omission).
+ */
+public class LoadTest {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicLong inFlight = new AtomicLong();
+
+    public LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(options.getTimeoutSeconds()))
+                .executor(executor)
+                .build();
+        for (Endpoint endpoint : options.getMix().keySet()) {
+            recorders.put(endpoint, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.getCompare() != null) {
+            LoadTestComparison.compare(options, System.out);
+            return;
+        }
+        if (options.getStartupCommand() != null) {
+            new StartupBenchmark(options).run(System.out);
+            return;
+        }
+        LoadTestReport report = new LoadTest(options).run();
+        report.print(System.out);
+        report.write();
+    }
+
+    /**
+     * This method runs warmup and measurement phases and collects latencies of measured requests.
+     *
+     * @return Report of the measured phase
+     * @throws Exception if initial login fails or run is interrupted
+     */
+    public LoadTestReport run() throws Exception {
+        String token = login();
+        Random random = new Random();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate());
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + TimeUnit.SECONDS.toNanos(options.getWarmup());
+        long end = measureStart + TimeUnit.SECONDS.toNanos(options.getDuration());
+
+        ServerSampler serverSampler = options.getServerPid() == null ? null : new ServerSampler(options.getServerPid());
+        long intendedStart = start;
+        boolean sampling = false;
+        while (intendedStart < end) {
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!sampling && serverSampler != null && intendedStart >= measureStart) {
+                serverSampler.start();
+                sampling = true;
+            }
+            send(options.pick(random), random, token, intendedStart, intendedStart >= measureStart);
+            intendedStart += nextInterval(random, intervalNanos);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.getTimeoutSeconds());
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdownNow();
+        if (serverSampler != null) {
+            serverSampler.stop();
+        }
+
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Long> errorCounts = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : recorders.keySet()) {
+            histograms.put(endpoint, recorders.get(endpoint).getIntervalHistogram());
+            errorCounts.put(endpoint, errors.get(endpoint).get());
+        }
+        return new LoadTestReport(options, histograms, errorCounts, inFlight.get(), serverSampler);
+    }
+
+    private long nextInterval(Random random, long intervalNanos) {
+        if (options.getArrival().equals("poisson")) {
+            return (long) (-Math.log(1.0 - random.nextDouble()) * intervalNanos);
+        }
+        return intervalNanos;
+    }
+
+    private void send(Endpoint endpoint, Random random, String token, long intendedStart, boolean measured) {
+        HttpRequest request = endpoint.request(options, random, token);
+        inFlight.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, throwable) -> {
+                    long latency = System.nanoTime() - intendedStart;
+                    if (measured) {
+                        recorders.get(endpoint).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+                        if (throwable != null || response.statusCode() >= 400) {
+                            errors.get(endpoint).incrementAndGet();
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private String login() throws Exception {
+        HttpResponse<String> response = httpClient.send(Endpoint.LOGIN.request(options, new Random(), null),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Initial login failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
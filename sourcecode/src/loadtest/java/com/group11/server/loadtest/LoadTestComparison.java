@@ -0,0 +1,68 @@
+package com.group11.server.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Prints two earlier load test reports side by side, e.g. the platform thread pool against virtual threads.
+ * Runs are selected with "--compare baselineLabel,candidateLabel" and read from the output directory.
+ */
+public class LoadTestComparison {
+
+    private static final String[] FIELDS = {"throughput", "errors", "p50Ms", "p99Ms", "p999Ms", "maxMs"};
+
+    private LoadTestComparison() {
+    }
+
+    /**
+     * This method prints the relative change of every endpoint metric and of sampled server resources.
+     *
+     * @param options Options that hold output directory and the two labels
+     * @param out     Stream to print to
+     * @throws IOException if a report cannot be read
+     */
+    public static void compare(LoadTestOptions options, PrintStream out) throws IOException {
+        String[] labels = options.getCompare().split(",");
+        if (labels.length != 2) {
+            throw new IllegalArgumentException("--compare expects two labels separated by a comma");
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode baseline = objectMapper.readTree(new File(options.getOutputDir(), "loadtest-" + labels[0] + ".json"));
+        JsonNode candidate = objectMapper.readTree(new File(options.getOutputDir(), "loadtest-" + labels[1] + ".json"));
+
+        out.printf("%-20s %-12s %14s %14s %9s%n", "endpoint", "metric", labels[0], labels[1], "change");
+        Iterator<Map.Entry<String, JsonNode>> endpoints = baseline.get("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> entry = endpoints.next();
+            printEndpoint(out, entry.getKey(), entry.getValue(), candidate.path("endpoints").path(entry.getKey()));
+        }
+        printEndpoint(out, "total", baseline.get("total"), candidate.get("total"));
+
+        if (baseline.has("server") && candidate.has("server")) {
+            printRow(out, "server", "peakRssMb", baseline.get("server").get("peakRssMb").asDouble(),
+                    candidate.get("server").get("peakRssMb").asDouble());
+            printRow(out, "server", "peakThreads", baseline.get("server").get("peakThreads").asDouble(),
+                    candidate.get("server").get("peakThreads").asDouble());
+        }
+    }
+
+    private static void printEndpoint(PrintStream out, String name, JsonNode baseline, JsonNode candidate) {
+        if (candidate == null || candidate.isMissingNode()) {
+            return;
+        }
+        for (String field : FIELDS) {
+            printRow(out, name, field, baseline.get(field).asDouble(), candidate.get(field).asDouble());
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, String field, double baseline, double candidate) {
+        String change = baseline == 0 ? "-" : String.format("%+.1f%%", (candidate - baseline) * 100 / baseline);
+        out.printf("%-20s %-12s %14.2f %14.2f %9s%n", name, field, baseline, candidate, change);
+    }
+}
@@ -0,0 +1,173 @@
+package com.group11.server.loadtest;
+
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Command line options of a load test run. Every option is given as "--name value".
+ */
+@Getter
+public class LoadTestOptions {
+
+    /**
+     * Base URL of the server under test
+     */
+    private String baseUrl = "http://localhost:8080";
+
+    /**
+     * Label of the run, used in report file names to compare builds
+     */
+    private String label = "result";
+
+    /**
+     * Directory that reports are written to
+     */
+    private String outputDir = "target";
+
+    /**
+     * Target arrival rate in requests per second, independent of response times
+     */
+    private double rate = 100;
+
+    /**
+     * Arrival process, either "constant" or "poisson"
+     */
+    private String arrival = "constant";
+
+    /**
+     * Measured duration in seconds
+     */
+    private int duration = 30;
+
+    /**
+     * Warmup duration in seconds whose requests are sent but not recorded
+     */
+    private int warmup = 10;
+
+    /**
+     * Per request timeout in seconds
+     */
+    private int timeoutSeconds = 30;
+
+    /**
+     * Relative weights of endpoints, e.g. "login=1,game=2,leaderboard_weekly=5"
+     */
+    private Map<Endpoint, Integer> mix = parseMix("login=1,game=2,leaderboard_weekly=4,leaderboard_monthly=2,player=1");
+
+    private String username = "admin";
+    private String password = "admin";
+    private long playerId = 1;
+    private int pageLimit = 10;
+    private int maxScore = 1000;
+
+    /**
+     * Process id of a server on the same machine whose resident memory and thread count are sampled, if any
+     */
+    private Long serverPid;
+
+    /**
+     * Labels of two earlier runs to compare instead of running a new load test
+     */
+    private String compare;
+
+    /**
+     * Command that starts the server, measured by the startup benchmark instead of running a load test
+     */
+    private String startupCommand;
+
+    /**
+     * Command of the build to compare the startup command against, started alternately with it
+     */
+    private String baselineCommand;
+
+    /**
+     * Number of starts of each command in the startup benchmark
+     */
+    private int startupRuns = 5;
+
+    /**
+     * Request path polled until the started server answers it successfully
+     */
+    private String startupProbe = "/api/leaderboard_weekly?pageLimit=1";
+
+    private int totalWeight = 11;
+
+    /**
+     * This method parses command line arguments into options.
+     *
+     * @param args Command line arguments
+     * @return Parsed options
+     */
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected \"--name value\" but got: " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i].substring(2)) {
+                case "base-url": options.baseUrl = value; break;
+                case "label": options.label = value; break;
+                case "output-dir": options.outputDir = value; break;
+                case "rate": options.rate = Double.parseDouble(value); break;
+                case "arrival": options.arrival = value; break;
+                case "duration": options.duration = Integer.parseInt(value); break;
+                case "warmup": options.warmup = Integer.parseInt(value); break;
+                case "timeout": options.timeoutSeconds = Integer.parseInt(value); break;
+                case "mix": options.mix = parseMix(value); break;
+                case "username": options.username = value; break;
+                case "password": options.password = value; break;
+                case "player-id": options.playerId = Long.parseLong(value); break;
+                case "page-limit": options.pageLimit = Integer.parseInt(value); break;
+                case "max-score": options.maxScore = Integer.parseInt(value); break;
+                case "server-pid": options.serverPid = Long.parseLong(value); break;
+                case "compare": options.compare = value; break;
+                case "startup-command": options.startupCommand = value; break;
+                case "baseline-command": options.baselineCommand = value; break;
+                case "startup-runs": options.startupRuns = Integer.parseInt(value); break;
+                case "startup-probe": options.startupProbe = value; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!options.arrival.equals("constant") && !options.arrival.equals("poisson")) {
+            throw new IllegalArgumentException("Arrival must be constant or poisson");
+        }
+        options.totalWeight = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (options.rate <= 0 || options.totalWeight <= 0) {
+            throw new IllegalArgumentException("Rate and workload mix weights must be positive");
+        }
+        return options;
+    }
+
+    /**
+     * This method picks an endpoint randomly with respect to workload mix weights.
+     *
+     * @param random Random source
+     * @return Picked endpoint
+     */
+    public Endpoint pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Workload mix is empty");
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Endpoint.fromKey(pair[0].trim()), weight);
+            }
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,132 @@
+package com.group11.server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency and throughput summary of a load test run.
+ * It is printed as a table and written as JSON plus one HdrHistogram percentile distribution (.hgrm) per endpoint,
+ * so two runs with different labels can be compared side by side or plotted together.
+ */
+public class LoadTestReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LoadTestOptions options;
+    private final Map<Endpoint, Histogram> histograms;
+    private final Map<Endpoint, Long> errors;
+    private final long unfinished;
+    private final ServerSampler serverSampler;
+    private final Histogram total;
+
+    public LoadTestReport(LoadTestOptions options, Map<Endpoint, Histogram> histograms, Map<Endpoint, Long> errors,
+                          long unfinished, ServerSampler serverSampler) {
+        this.options = options;
+        this.histograms = histograms;
+        this.errors = errors;
+        this.unfinished = unfinished;
+        this.serverSampler = serverSampler;
+        this.total = new Histogram(3);
+        histograms.values().forEach(total::add);
+    }
+
+    /**
+     * This method prints a summary table of all endpoints.
+     *
+     * @param out Stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("%-20s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, Histogram> entry : histograms.entrySet()) {
+            printRow(out, entry.getKey().getKey(), entry.getValue(), errors.get(entry.getKey()));
+        }
+        printRow(out, "total", total, errors.values().stream().mapToLong(Long::longValue).sum());
+        if (unfinished > 0) {
+            out.printf("%d requests were still in flight when the run ended and are not included%n", unfinished);
+        }
+        if (serverSampler != null) {
+            out.printf("server peak RSS %.1f MB, peak threads %d%n", serverSampler.getPeakRssMb(), serverSampler.getPeakThreads());
+        }
+    }
+
+    /**
+     * This method writes JSON summary and percentile distributions into the output directory.
+     *
+     * @throws IOException if files cannot be written
+     */
+    public void write() throws IOException {
+        File directory = new File(options.getOutputDir());
+        directory.mkdirs();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.getLabel());
+        report.put("timestamp", Instant.now().toString());
+        report.put("baseUrl", options.getBaseUrl());
+        report.put("targetRate", options.getRate());
+        report.put("arrival", options.getArrival());
+        report.put("durationSeconds", options.getDuration());
+        report.put("warmupSeconds", options.getWarmup());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.getMix().forEach((endpoint, weight) -> mix.put(endpoint.getKey(), weight));
+        report.put("mix", mix);
+        report.put("unfinished", unfinished);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<Endpoint, Histogram> entry : histograms.entrySet()) {
+            endpoints.put(entry.getKey().getKey(), summary(entry.getValue(), errors.get(entry.getKey())));
+            writeDistribution(new File(directory, "loadtest-" + options.getLabel() + "-" + entry.getKey().getKey() + ".hgrm"), entry.getValue());
+        }
+        report.put("endpoints", endpoints);
+        report.put("total", summary(total, errors.values().stream().mapToLong(Long::longValue).sum()));
+        if (serverSampler != null) {
+            Map<String, Object> server = new LinkedHashMap<>();
+            server.put("peakRssMb", serverSampler.getPeakRssMb());
+            server.put("peakThreads", serverSampler.getPeakThreads());
+            report.put("server", server);
+        }
+        writeDistribution(new File(directory, "loadtest-" + options.getLabel() + "-total.hgrm"), total);
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(new File(directory, "loadtest-" + options.getLabel() + ".json"), report);
+    }
+
+    private Map<String, Object> summary(Histogram histogram, long errorCount) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errorCount);
+        summary.put("throughput", histogram.getTotalCount() / (double) options.getDuration());
+        summary.put("meanMs", histogram.getMean() / NANOS_PER_MILLI);
+        summary.put("p50Ms", percentile(histogram, 50));
+        summary.put("p90Ms", percentile(histogram, 90));
+        summary.put("p99Ms", percentile(histogram, 99));
+        summary.put("p999Ms", percentile(histogram, 99.9));
+        summary.put("maxMs", histogram.getMaxValue() / NANOS_PER_MILLI);
+        return summary;
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long errorCount) {
+        out.printf("%-20s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), errorCount, histogram.getTotalCount() / (double) options.getDuration(),
+                percentile(histogram, 50), percentile(histogram, 99), percentile(histogram, 99.9),
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private static double percentile(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    private static void writeDistribution(File file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.group11.server.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples resident memory and thread count of a local server process from /proc while the measured phase runs.
+ * Only available on Linux.
+ */
+public class ServerSampler {
+
+    private final String statusPath;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private volatile long peakRssKb;
+    private volatile int peakThreads;
+
+    public ServerSampler(long pid) {
+        this.statusPath = "/proc/" + pid + "/status";
+        if (!Files.isReadable(Paths.get(statusPath))) {
+            throw new IllegalArgumentException("Cannot read " + statusPath + ", server must run on this Linux machine");
+        }
+    }
+
+    /**
+     * This method starts sampling twice a second.
+     */
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, 500, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method stops sampling after taking a last sample.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        sample();
+    }
+
+    private void sample() {
+        try {
+            for (String line : Files.readAllLines(Paths.get(statusPath))) {
+                if (line.startsWith("VmRSS:")) {
+                    peakRssKb = Math.max(peakRssKb, Long.parseLong(line.replaceAll("\\D", "")));
+                } else if (line.startsWith("Threads:")) {
+                    peakThreads = Math.max(peakThreads, Integer.parseInt(line.replaceAll("\\D", "")));
+                }
+            }
+        } catch (IOException e) {
+            // Server exited, keep the peaks seen so far
+        }
+    }
+
+    /**
+     * @return Highest resident set size seen in megabytes
+     */
+    public double getPeakRssMb() {
+        return peakRssKb / 1024.0;
+    }
+
+    /**
+     * @return Highest number of operating system threads seen
+     */
+    public int getPeakThreads() {
+        return peakThreads;
+    }
+}
@@ -0,0 +1,144 @@
+package com.group11.server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time to first request: the time from starting a server process until it answers a request successfully.
+ * This includes JVM startup, class loading, context refresh and the work deferred to the first request by lazy
+ * initialization. When a baseline command is given both commands are started alternately, so a slow machine
+ * affects both the same way.
+ */
+public class StartupBenchmark {
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient;
+
+    public StartupBenchmark(LoadTestOptions options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(500))
+                .build();
+    }
+
+    /**
+     * This method starts the commands the configured number of times, prints a summary
+     * and writes startup-&lt;label&gt;.json into the output directory.
+     *
+     * @param out Stream to print to
+     * @throws Exception if a server does not answer within the timeout or the report cannot be written
+     */
+    public void run(PrintStream out) throws Exception {
+        List<Double> candidate = new ArrayList<>();
+        List<Double> baseline = new ArrayList<>();
+        for (int i = 0; i < options.getStartupRuns(); i++) {
+            if (options.getBaselineCommand() != null) {
+                baseline.add(measure(options.getBaselineCommand()));
+                out.printf("run %d baseline  %10.0f ms%n", i + 1, baseline.get(i));
+            }
+            candidate.add(measure(options.getStartupCommand()));
+            out.printf("run %d candidate %10.0f ms%n", i + 1, candidate.get(i));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.getLabel());
+        report.put("timestamp", Instant.now().toString());
+        report.put("probe", options.getStartupProbe());
+        report.put("candidate", summary(options.getStartupCommand(), candidate));
+        out.printf("%-10s %10s %10s %10s%n", "", "min ms", "median ms", "max ms");
+        printRow(out, "candidate", candidate);
+        if (options.getBaselineCommand() != null) {
+            report.put("baseline", summary(options.getBaselineCommand(), baseline));
+            printRow(out, "baseline", baseline);
+            out.printf("median change %+.1f%%%n", (median(candidate) / median(baseline) - 1) * 100);
+        }
+
+        File directory = new File(options.getOutputDir());
+        directory.mkdirs();
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(new File(directory, "startup-" + options.getLabel() + ".json"), report);
+    }
+
+    /**
+     * This method starts a server and polls the probe until it answers, then stops the server.
+     *
+     * @param command Command line that starts the server, split on whitespace
+     * @return Time to first successful request in milliseconds
+     * @throws Exception if the server exits or does not answer within the timeout
+     */
+    private double measure(String command) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(options.getBaseUrl() + options.getStartupProbe()))
+                .timeout(Duration.ofSeconds(options.getTimeoutSeconds()))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(options.getTimeoutSeconds());
+        Process process = new ProcessBuilder(Arrays.asList(command.trim().split("\\s+")))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Server exited with code " + process.exitValue() + ": " + command);
+                }
+                try {
+                    HttpResponse<Void> response = httpClient.send(probe, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() < 400) {
+                        return (System.nanoTime() - start) / 1_000_000.0;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            throw new IllegalStateException("Server did not answer " + options.getStartupProbe() + " within "
+                    + options.getTimeoutSeconds() + " seconds: " + command);
+        } finally {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            if (!process.waitFor(options.getTimeoutSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Map<String, Object> summary(String command, List<Double> millis) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("command", command);
+        summary.put("runsMs", millis);
+        summary.put("minMs", Collections.min(millis));
+        summary.put("medianMs", median(millis));
+        summary.put("maxMs", Collections.max(millis));
+        return summary;
+    }
+
+    private static void printRow(PrintStream out, String name, List<Double> millis) {
+        out.printf("%-10s %10.0f %10.0f %10.0f%n", name, Collections.min(millis), median(millis), Collections.max(millis));
+    }
+
+    private static double median(List<Double> millis) {
+        List<Double> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+}
@@ -0,0 +1,30 @@
+package com.group11.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Training run of the AppCDS archive built by the appcds Maven profile.
+ * The application starts, which loads every class needed for startup, and then exits so the JVM can write
+ * the list of loaded classes. Never enable it on a server that should keep running.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(value = "appcds.training-run", havingValue = "true")
+public class AppCdsTrainingConfig {
+
+    /**
+     * This method stops the application as soon as it is ready to serve requests.
+     *
+     * @param event Event of the started application
+     */
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        log.info("AppCDS training run finished, exiting");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
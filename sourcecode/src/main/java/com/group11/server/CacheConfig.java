@@ -0,0 +1,110 @@
+package com.group11.server;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Second-level cache region of Player entities by ID
+     */
+    public static final String PLAYER_REGION = "player";
+
+    /**
+     * Second-level cache region that resolves Player usernames to IDs
+     */
+    public static final String PLAYER_NATURAL_ID_REGION = "player-natural-id";
+
+    /**
+     * Cache of game IDs by player and idempotency key of their submission
+     */
+    public static final String GAME_IDEMPOTENCY_REGION = "game-idempotency";
+
+    @Value("${cache.player.max-entries:10000}")
+    private long playerMaxEntries;
+
+    @Value("${cache.player.time-to-live-seconds:300}")
+    private long playerTimeToLiveSeconds;
+
+    @Value("${idempotency.max-entries:100000}")
+    private long idempotencyMaxEntries;
+
+    @Value("${idempotency.time-to-live-seconds:600}")
+    private long idempotencyTimeToLiveSeconds;
+
+    /**
+     * This method creates the local JCache manager that backs Hibernate's second-level cache.
+     * Both Player regions are bounded by entry count and expire entries after a time to live,
+     * which also bounds how long another application instance may serve a Player that was updated elsewhere.
+     * The same manager holds the bounded window of recently used idempotency keys of game submissions.
+     * Statistics are enabled so hit ratios are exported as javax.cache CacheStatistics MBeans.
+     *
+     * @return A new CacheManager with the Player regions created
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider cachingProvider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // Every application context gets its own manager, so instances started in the same JVM do not share entries
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("urn:group11:hibernate:" + System.identityHashCode(this)),
+                new DefaultConfiguration(getClass().getClassLoader()));
+
+        for (String region : new String[]{PLAYER_REGION, PLAYER_NATURAL_ID_REGION}) {
+            cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(playerMaxEntries))
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(playerTimeToLiveSeconds)))));
+            cacheManager.enableStatistics(region, true);
+            cacheManager.enableManagement(region, true);
+        }
+        cacheManager.createCache(GAME_IDEMPOTENCY_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Long.class,
+                                ResourcePoolsBuilder.heap(idempotencyMaxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(idempotencyTimeToLiveSeconds)))));
+        cacheManager.enableStatistics(GAME_IDEMPOTENCY_REGION, true);
+        return cacheManager;
+    }
+
+    /**
+     * This method passes the cache manager above to Hibernate instead of letting it create its own.
+     *
+     * @param hibernateCacheManager CacheManager that holds second-level cache regions
+     * @return Customizer that adds the cache manager to Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * This method exports size, hit, miss and eviction metrics of the second-level cache regions.
+     *
+     * @param hibernateCacheManager CacheManager that holds second-level cache regions
+     * @return Binder that registers metrics of every region
+     */
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return meterRegistry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(meterRegistry, hibernateCacheManager.getCache(region));
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.group11.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class CborConfig {
+
+    /**
+     * This method creates the message converter for "application/cbor" responses.
+     * Clients that send "Accept: application/cbor" get the same objects as the JSON responses, with the same
+     * property names, encoded as CBOR. JSON stays the default for every other Accept header.
+     *
+     * @param jackson2ObjectMapperBuilder Builder configured with the application's Jackson settings
+     * @return CBOR message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(jackson2ObjectMapperBuilder));
+    }
+
+    /**
+     * This method creates an object mapper that writes CBOR with the given Jackson settings.
+     *
+     * @param jackson2ObjectMapperBuilder Builder configured with the application's Jackson settings
+     * @return CBOR object mapper
+     */
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return jackson2ObjectMapperBuilder.createXmlMapper(false).factory(new CBORFactory()).build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.group11.server;
+
+import com.group11.server.dao.GameImportReportDao;
+import com.group11.server.service.GameImporter;
+import com.group11.server.service.LeaderboardSnapshotService;
+import com.group11.server.service.PlayerStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Command line bulk import of historical games. Started with game-import.file set, the application imports the file
+ * and exits, without a web server, score validation or snapshot job. Imported games bypass the game API, so
+ * in-memory leaderboards of running servers only include them after a restart. Snapshots of the periods the games
+ * fall in are deleted, to be taken again by a restarted server; player statistics are rebuilt once at the end.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("game-import.file")
+public class GameImportConfig {
+
+    /**
+     * @param gameImporter       Importer of the file
+     * @param playerStatsService Service whose statistics are rebuilt after the import
+     * @param snapshotService    Service whose snapshots of the imported periods are deleted after the import
+     * @param context            Application context to close when the import is done
+     * @param file               Path of the CSV or NDJSON file to import
+     * @param rebuildStats       Whether player statistics are rebuilt after the import
+     * @return Runner that imports the file and exits
+     */
+    @Bean
+    public ApplicationRunner gameImportRunner(GameImporter gameImporter,
+                                              PlayerStatsService playerStatsService,
+                                              LeaderboardSnapshotService snapshotService,
+                                              ConfigurableApplicationContext context,
+                                              @Value("${game-import.file}") String file,
+                                              @Value("${game-import.rebuild-stats:true}") boolean rebuildStats) {
+        return args -> {
+            GameImportReportDao report = gameImporter.importGames(Paths.get(file));
+            if (report.getEarliestEndTime() != null) {
+                log.info("Deleted {} leaderboard snapshots from {}",
+                        snapshotService.deleteSnapshotsFrom(report.getEarliestEndTime()), report.getEarliestEndTime());
+            }
+            if (rebuildStats) {
+                log.info("Rebuilt statistics of {} players", playerStatsService.rebuildPlayerStats());
+            }
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    /**
+     * Turns the application started for an import into a command line run: it has no web server, and neither
+     * validates scores nor takes snapshots from a leaderboard index loaded before the import.
+     */
+    public static class ImportMode implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+        @Override
+        public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+            ConfigurableEnvironment environment = event.getEnvironment();
+            if (!environment.containsProperty("game-import.file")) return;
+            environment.getPropertySources().addFirst(new MapPropertySource("gameImport", Map.of(
+                    "spring.main.web-application-type", "none",
+                    "score-validation.enabled", "false",
+                    "leaderboard.snapshot.enabled", "false")));
+        }
+    }
+}
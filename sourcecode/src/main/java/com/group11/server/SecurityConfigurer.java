@@ -2,6 +2,8 @@ package com.group11.server;
 
 import com.group11.server.service.UsersDetailsService;
 import com.group11.server.utils.JwtRequestFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,17 +16,33 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfigurer extends WebSecurityConfigurerAdapter {
+    /**
+     * Log rounds used by BCryptPasswordEncoder while hashing passwords
+     */
+    public static final int BCRYPT_STRENGTH = 10;
+
     private final UsersDetailsService usersDetailsService;
 
     private final JwtRequestFilter jwtRequestFilter;
 
-    public SecurityConfigurer(UsersDetailsService usersDetailsService, JwtRequestFilter jwtRequestFilter) {
+    /**
+     * Port of the actuator endpoints, or -1 if they share the application port
+     */
+    private final int managementPort;
+
+    private final RequestMatcher actuatorEndpoints = EndpointRequest.toAnyEndpoint();
+
+    public SecurityConfigurer(UsersDetailsService usersDetailsService, JwtRequestFilter jwtRequestFilter,
+                              @Value("${management.server.port:-1}") int managementPort,
+                              @Value("${server.port:8080}") int serverPort) {
         this.usersDetailsService = usersDetailsService;
         this.jwtRequestFilter = jwtRequestFilter;
+        this.managementPort = managementPort == serverPort ? -1 : managementPort;
     }
 
     /**
@@ -43,8 +61,11 @@ public class SecurityConfigurer extends WebSecurityConfigurerAdapter {
     /**
      * This method configures HTTP security part of Spring Security by passing
      * disabling CSRF and authorizing everyone to reach Swagger UI, login and
-     * register pages. As a final effect it adds Jwttoken filter into HTTP filter
-     * chain and changes session policy to stateless.
+     * register pages. Player directory export is only allowed for authenticated users. Rebuilding player
+     * statistics and replaying score validation change data of every player and need the admin authority.
+     * Health is open so probes need no token. Metrics are only open on the management port, which is not meant
+     * to be reachable from outside, and need an authenticated user on the application port.
+     * As a final effect it adds Jwttoken filter into HTTP filter chain and changes session policy to stateless.
      *
      * @param http HttpSecurity instance that is web authorization system
      */
@@ -54,7 +75,13 @@ public class SecurityConfigurer extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 .antMatchers("/api/login").permitAll()
                 .antMatchers("/api/register").permitAll()
+                .antMatchers("/api/players/export").authenticated()
+                .antMatchers("/api/player/stats/rebuild").hasAuthority(UsersDetailsService.ADMIN_AUTHORITY)
+                .antMatchers("/api/scores/validation/replay").hasAuthority(UsersDetailsService.ADMIN_AUTHORITY)
                 .antMatchers("/api/**").permitAll()
+                .antMatchers("/actuator/health").permitAll()
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                        && actuatorEndpoints.matches(request)).permitAll()
                 .anyRequest()
                 .authenticated()
                 .and().sessionManagement()
@@ -71,7 +98,7 @@ public class SecurityConfigurer extends WebSecurityConfigurerAdapter {
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(BCRYPT_STRENGTH);
     }
 
     /**
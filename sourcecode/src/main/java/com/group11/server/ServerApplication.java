@@ -3,14 +3,15 @@ package com.group11.server;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
-import springfox.documentation.swagger2.annotations.EnableSwagger2;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableSwagger2
+@EnableScheduling
 public class ServerApplication extends SpringBootServletInitializer {
 
     public static void main(String[] args) {
-        SpringApplication.run(ServerApplication.class, args);
-
+        SpringApplication application = new SpringApplication(ServerApplication.class);
+        application.addListeners(new GameImportConfig.ImportMode());
+        application.run(args);
     }
 }
\ No newline at end of file
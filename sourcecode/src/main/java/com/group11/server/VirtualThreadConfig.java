@@ -0,0 +1,62 @@
+package com.group11.server;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in mode that runs every request on its own virtual thread instead of Tomcat's fixed worker pool.
+ * Requests blocked on JDBC or SMTP then park a cheap virtual thread rather than a platform thread,
+ * so concurrency is bounded by the connection pool and memory instead of server.tomcat.threads.max.
+ * Enable with server.virtual-threads.enabled=true on a Java 21 or newer runtime.
+ */
+@Configuration
+@ConditionalOnProperty(value = "server.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * This method creates an executor that starts a new virtual thread per task.
+     * It is looked up reflectively so the application still compiles and runs on Java 11 when the mode is off.
+     *
+     * @return A new virtual thread per task executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            throw new IllegalStateException("server.virtual-threads.enabled requires Java 21 or newer, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * This method replaces Tomcat's request processing pool with the virtual thread executor.
+     *
+     * @param virtualThreadExecutor Executor that runs each task on a new virtual thread
+     * @return Customizer for Tomcat's protocol handler
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * This method replaces the application task executor, which also runs asynchronous MVC
+     * handlers such as streaming responses, with the virtual thread executor.
+     *
+     * @param virtualThreadExecutor Executor that runs each task on a new virtual thread
+     * @return Task executor backed by virtual threads
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -1,17 +1,43 @@
 package com.group11.server.controller;
 
 import com.group11.server.dao.GameDao;
+import com.group11.server.dao.GameSessionDao;
+import com.group11.server.dao.LeaderboardPayload;
+import com.group11.server.dao.LeaderboardSnapshotDao;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.dao.ScoreHistogramDao;
+import com.group11.server.dao.ScorePercentileDao;
+import com.group11.server.dao.ScoreValidationReplayDao;
 import com.group11.server.model.Game;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
 import com.group11.server.model.Player;
 import com.group11.server.service.GameService;
+import com.group11.server.service.GameSessionService;
+import com.group11.server.service.LeaderboardPushService;
+import com.group11.server.service.LeaderboardSnapshotService;
+import com.group11.server.service.LeaderboardVersion;
+import com.group11.server.service.ScoreValidationPipeline;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,54 +46,516 @@ import java.util.List;
 public class GameController {
 
     private final GameService gameService;
+    private final GameSessionService gameSessionService;
+    private final LeaderboardPushService leaderboardPushService;
+    private final LeaderboardSnapshotService leaderboardSnapshotService;
+    private final LeaderboardVersion leaderboardVersion;
+    private final ScoreValidationPipeline scoreValidationPipeline;
+
+    @Value("${leaderboard.cache.max-age-seconds:0}")
+    private long leaderboardMaxAgeSeconds;
+
+    @Value("${leaderboard.preserialized.enabled:false}")
+    private boolean leaderboardPreserialized;
 
     /**
      * This method maps POST Request to /game and saves game with given ID of player and score.
+     * Retries that send the same Idempotency-Key header get the ID of the first saved game and save nothing.
      *
      * @param playerID ID of the player
      * @param score  Score of the player
-     * @throws Exception if player does not exist
+     * @param idempotencyKey Key that is the same for retries of a submission, optional
+     * @param season         Season the game is played in, optional
+     * @param mode           Game mode the game is played in, optional
+     * @return ID of the saved game
+     * @throws Exception if player does not exist or season or mode is invalid
      */
     @PostMapping("/game")
     @ApiOperation(value = "Saves game with given ID of player and score",
-            notes = "Provide ID of player and score of player to save the game",
-            response = void.class)
-    public void addRecord(@ApiParam(value = "ID of the game")
+            notes = "Provide ID of player and score of player to save the game. Send a unique Idempotency-Key header to make retries safe",
+            response = Long.class)
+    public Long addRecord(@ApiParam(value = "ID of the game")
                           @RequestParam(value = "playerID") Long playerID,
                           @ApiParam(value = "Score of the player")
-                          @RequestParam(value = "score") Integer score) throws Exception {
-        gameService.addGame(playerID, score);
+                          @RequestParam(value = "score") Integer score,
+                          @ApiParam(value = "Key that is the same for retries of a submission, at most 64 characters")
+                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                          @ApiParam(value = "Season the game is played in, optional")
+                          @RequestParam(value = "season", required = false) String season,
+                          @ApiParam(value = "Game mode the game is played in, optional")
+                          @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameService.addGame(playerID, score, idempotencyKey, LeaderboardKey.of(season, mode));
+    }
+
+    /**
+     * This method maps POST Request to /game/start and starts a game session of the player.
+     * The session is kept in memory until it is finished, nothing is saved before that.
+     *
+     * @param playerID ID of the player
+     * @param season   Season the game is played in, optional
+     * @param mode     Game mode the game is played in, optional
+     * @return The started session, its ID is needed for heartbeats and finishing
+     * @throws Exception if player does not exist, too many games are active or season or mode is invalid
+     */
+    @PostMapping("/game/start")
+    @ApiOperation(value = "Starts a game session for the player with given ID",
+            notes = "Send heartbeats with the returned session ID until the game is finished",
+            response = GameSessionDao.class)
+    public GameSessionDao startGame(@ApiParam(value = "ID of the player")
+                                    @RequestParam(value = "playerID") Long playerID,
+                                    @ApiParam(value = "Season the game is played in, optional")
+                                    @RequestParam(value = "season", required = false) String season,
+                                    @ApiParam(value = "Game mode the game is played in, optional")
+                                    @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameSessionService.startSession(playerID, LeaderboardKey.of(season, mode));
+    }
+
+    /**
+     * This method maps POST Request to /game/heartbeat and keeps a game session alive.
+     *
+     * @param sessionId ID of the session
+     * @param score     Current score of the game, optional
+     * @throws Exception if session does not exist or has expired
+     */
+    @PostMapping("/game/heartbeat")
+    @ApiOperation(value = "Keeps a game session alive and updates its current score",
+            notes = "Sessions without heartbeat for game-session.timeout-seconds expire and are not saved",
+            response = void.class)
+    public void heartbeat(@ApiParam(value = "ID of the session")
+                          @RequestParam(value = "sessionId") String sessionId,
+                          @ApiParam(value = "Current score of the game")
+                          @RequestParam(value = "score", required = false) Integer score) throws Exception {
+        gameSessionService.heartbeat(sessionId, score);
+    }
+
+    /**
+     * This method maps POST Request to /game/finish, ends a game session and saves its game.
+     *
+     * @param sessionId ID of the session
+     * @param score     Final score of the game, last heartbeat score is used when missing
+     * @throws Exception if session does not exist or has expired
+     */
+    @PostMapping("/game/finish")
+    @ApiOperation(value = "Finishes a game session and saves the game",
+            notes = "Provide session ID and final score",
+            response = void.class)
+    public void finishGame(@ApiParam(value = "ID of the session")
+                           @RequestParam(value = "sessionId") String sessionId,
+                           @ApiParam(value = "Final score of the game")
+                           @RequestParam(value = "score", required = false) Integer score) throws Exception {
+        gameSessionService.finishSession(sessionId, score);
+    }
+
+    /**
+     * This method maps GET Request to /game/active.
+     *
+     * @return Number of games in progress on this server
+     */
+    @GetMapping("/game/active")
+    @ApiOperation(value = "Gets number of games in progress",
+            notes = "Counted on this server instance only",
+            response = Integer.class)
+    public int getActiveGameCount() {
+        return gameSessionService.getActiveSessionCount();
     }
 
     /**
-     * This method maps GET Request to /leaderboard_weekly
+     * This method maps GET Request to /leaderboard_weekly.
+     * Responds 304 Not Modified without querying the database when If-None-Match or If-Modified-Since
+     * matches the current leaderboard version.
      *
      * @param pageLimit Size of the returning list. Should be positive int
+     * @param webRequest Request holding conditional headers
+     * @param season     Season of the leaderboard, all games if both season and mode are missing
+     * @param mode       Game mode of the leaderboard
      * @return A list of last week's games ordered by Score
      */
-    @GetMapping("/leaderboard_weekly")
+    @GetMapping(value = "/leaderboard_weekly", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     @ApiOperation(value = "Gets highest N(pageLimit) scores of last week from the database",
             notes = "Provide page limit for receiving that number of elements in returning list",
             response = Game.class,
             responseContainer = "List")
-    public List<GameDao> getWeeklyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
-                                       @RequestParam(value = "pageLimit") int pageLimit) {
-        return gameService.getWeeklyGameRecordList(pageLimit);
+    public ResponseEntity<?> getWeeklyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                              @RequestParam(value = "pageLimit") int pageLimit,
+                                              @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                              @RequestParam(value = "season", required = false) String season,
+                                              @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                              @RequestParam(value = "mode", required = false) String mode,
+                                              WebRequest webRequest) throws Exception {
+        LeaderboardKey leaderboardKey = LeaderboardKey.of(season, mode);
+        if (leaderboardKey != null) {
+            if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+            return conditionalLeaderboard(leaderboardKey, LeaderboardPeriod.WEEKLY, pageLimit, webRequest,
+                    () -> gameService.getBoardGameRecordList(leaderboardKey, LeaderboardPeriod.WEEKLY, pageLimit));
+        }
+        return conditionalLeaderboard(null, LeaderboardPeriod.WEEKLY, pageLimit, webRequest,
+                () -> gameService.getWeeklyGameRecordList(pageLimit));
     }
 
     /**
-     * This method maps GET Request to /leaderboard_monthly
+     * This method maps GET Request to /leaderboard_monthly.
+     * Responds 304 Not Modified without querying the database when If-None-Match or If-Modified-Since
+     * matches the current leaderboard version.
      *
      * @param pageLimit Size of the returning list. Should be positive int
+     * @param webRequest Request holding conditional headers
+     * @param season     Season of the leaderboard, all games if both season and mode are missing
+     * @param mode       Game mode of the leaderboard
      * @return A list of last month's games ordered by Score
      */
-    @GetMapping("/leaderboard_monthly")
+    @GetMapping(value = "/leaderboard_monthly", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     @ApiOperation(value = "Gets highest N(pageLimit) scores of last month from the database",
             notes = "Provide page limit for receiving that number of elements in returning list",
             response = Game.class,
             responseContainer = "List")
-    public List<GameDao> getMonthlyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
-                                        @RequestParam(value = "pageLimit") int pageLimit) {
-        return gameService.getMonthlyGameRecordList(pageLimit);
+    public ResponseEntity<?> getMonthlyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                               @RequestParam(value = "pageLimit") int pageLimit,
+                                               @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                               @RequestParam(value = "season", required = false) String season,
+                                               @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                               @RequestParam(value = "mode", required = false) String mode,
+                                               WebRequest webRequest) throws Exception {
+        LeaderboardKey leaderboardKey = LeaderboardKey.of(season, mode);
+        if (leaderboardKey != null) {
+            if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+            return conditionalLeaderboard(leaderboardKey, LeaderboardPeriod.MONTHLY, pageLimit, webRequest,
+                    () -> gameService.getBoardGameRecordList(leaderboardKey, LeaderboardPeriod.MONTHLY, pageLimit));
+        }
+        return conditionalLeaderboard(null, LeaderboardPeriod.MONTHLY, pageLimit, webRequest,
+                () -> gameService.getMonthlyGameRecordList(pageLimit));
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard_weekly/around.
+     *
+     * @param username Username of the player
+     * @param radius   Number of players listed above and below the player
+     * @param season   Season of the leaderboard, all games if both season and mode are missing
+     * @param mode     Game mode of the leaderboard
+     * @return Players ranked around the player in last week's leaderboard with their ranks
+     * @throws Exception if radius is negative or season or mode is invalid
+     */
+    @GetMapping(value = "/leaderboard_weekly/around", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets the player and the players ranked right above and below in last week's leaderboard",
+            notes = "Empty if the player has no games in the last week",
+            response = RankedGameDao.class,
+            responseContainer = "List")
+    public List<RankedGameDao> getWeeklyRecordsAround(@ApiParam(value = "Username of the player")
+                                                      @RequestParam(value = "username") String username,
+                                                      @ApiParam(value = "Number of players above and below the player, at most 50")
+                                                      @RequestParam(value = "radius", defaultValue = "5") int radius,
+                                                      @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                                      @RequestParam(value = "season", required = false) String season,
+                                                      @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                                      @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameService.getGameRecordsAround(LeaderboardKey.of(season, mode), LeaderboardPeriod.WEEKLY, username, radius);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard_monthly/around.
+     *
+     * @param username Username of the player
+     * @param radius   Number of players listed above and below the player
+     * @param season   Season of the leaderboard, all games if both season and mode are missing
+     * @param mode     Game mode of the leaderboard
+     * @return Players ranked around the player in last month's leaderboard with their ranks
+     * @throws Exception if radius is negative or season or mode is invalid
+     */
+    @GetMapping(value = "/leaderboard_monthly/around", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets the player and the players ranked right above and below in last month's leaderboard",
+            notes = "Empty if the player has no games in the last month",
+            response = RankedGameDao.class,
+            responseContainer = "List")
+    public List<RankedGameDao> getMonthlyRecordsAround(@ApiParam(value = "Username of the player")
+                                                       @RequestParam(value = "username") String username,
+                                                       @ApiParam(value = "Number of players above and below the player, at most 50")
+                                                       @RequestParam(value = "radius", defaultValue = "5") int radius,
+                                                       @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                                       @RequestParam(value = "season", required = false) String season,
+                                                       @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                                       @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameService.getGameRecordsAround(LeaderboardKey.of(season, mode), LeaderboardPeriod.MONTHLY, username, radius);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard.
+     *
+     * @param from      First day of the range, inclusive, no lower bound if missing
+     * @param to        Last day of the range, inclusive, no upper bound if missing
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @param season    Season of the leaderboard, all games if both season and mode are missing
+     * @param mode      Game mode of the leaderboard
+     * @return A list of players ordered by their total score in the range
+     * @throws Exception if page limit is not positive, from is after to or season or mode is invalid
+     */
+    @GetMapping(value = "/leaderboard", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets highest N(pageLimit) total scores of the games that ended between two dates",
+            notes = "Provide dates as yyyy-MM-dd, both inclusive. Missing dates leave the range open on that side",
+            response = GameDao.class,
+            responseContainer = "List")
+    public List<GameDao> getRangeRecords(@ApiParam(value = "First day of the range, inclusive")
+                                         @RequestParam(value = "from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @ApiParam(value = "Last day of the range, inclusive")
+                                         @RequestParam(value = "to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                         @RequestParam(value = "pageLimit") int pageLimit,
+                                         @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                         @RequestParam(value = "season", required = false) String season,
+                                         @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                         @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameService.getRangeGameRecordList(LeaderboardKey.of(season, mode), from, to, pageLimit);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard/history.
+     *
+     * @param period    WEEKLY for calendar weeks or MONTHLY for calendar months
+     * @param date      Any day of the period, the latest closed period if missing
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return Final ranking of the closed period
+     * @throws Exception if page limit is not positive or the period is not closed yet
+     */
+    @GetMapping(value = "/leaderboard/history", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets the final ranking of a closed calendar week or month",
+            notes = "Weeks run from Monday to Sunday. Provide page limit for receiving that number of elements in the ranking",
+            response = LeaderboardSnapshotDao.class)
+    public LeaderboardSnapshotDao getLeaderboardHistory(@ApiParam(value = "WEEKLY or MONTHLY")
+                                                        @RequestParam(value = "period") LeaderboardPeriod period,
+                                                        @ApiParam(value = "Any day of the period, the latest closed period if missing")
+                                                        @RequestParam(value = "date", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                        @ApiParam(value = "Page limit for receiving that number of elements in the ranking. Should be positive int")
+                                                        @RequestParam(value = "pageLimit") int pageLimit) throws Exception {
+        return leaderboardSnapshotService.getSnapshot(period, date, pageLimit);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard_all_time.
+     *
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @param season    Season of the leaderboard, all games if both season and mode are missing
+     * @param mode      Game mode of the leaderboard
+     * @return A list of players ordered by their total score of all games
+     * @throws Exception if page limit is not positive or season or mode is invalid
+     */
+    @GetMapping(value = "/leaderboard_all_time", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets highest N(pageLimit) total scores of all time",
+            notes = "Provide page limit for receiving that number of elements in returning list",
+            response = GameDao.class,
+            responseContainer = "List")
+    public List<GameDao> getAllTimeRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                           @RequestParam(value = "pageLimit") int pageLimit,
+                                           @ApiParam(value = "Season of the leaderboard, all games if missing together with mode")
+                                           @RequestParam(value = "season", required = false) String season,
+                                           @ApiParam(value = "Game mode of the leaderboard, all games if missing together with season")
+                                           @RequestParam(value = "mode", required = false) String mode) throws Exception {
+        return gameService.getRangeGameRecordList(LeaderboardKey.of(season, mode), null, null, pageLimit);
+    }
+
+    /**
+     * This method maps GET Request to /scores/percentile.
+     *
+     * @param score  Score to look up
+     * @param period WEEKLY or MONTHLY, all time if missing
+     * @return Percentage of games in the time window with the same or a lower score
+     * @throws Exception if score is negative
+     */
+    @GetMapping(value = "/scores/percentile", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets the percentile of a score among the games of last week, last month or all time",
+            notes = "Percentiles are within 0.1% of the score, see README",
+            response = ScorePercentileDao.class)
+    public ScorePercentileDao getScorePercentile(@ApiParam(value = "Score to look up")
+                                                 @RequestParam(value = "score") Integer score,
+                                                 @ApiParam(value = "WEEKLY or MONTHLY, all time if missing")
+                                                 @RequestParam(value = "period", required = false) LeaderboardPeriod period) throws Exception {
+        return gameService.getScorePercentile(score, period);
+    }
+
+    /**
+     * This method maps GET Request to /scores/histogram.
+     *
+     * @param period  WEEKLY or MONTHLY, all time if missing
+     * @param buckets Number of equal width buckets between zero and the highest score
+     * @return Number of games per score bucket
+     * @throws Exception if number of buckets is not positive
+     */
+    @GetMapping(value = "/scores/histogram", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets the number of games of last week, last month or all time per score bucket",
+            notes = "Provide number of buckets, at most 100",
+            response = ScoreHistogramDao.class)
+    public ScoreHistogramDao getScoreHistogram(@ApiParam(value = "WEEKLY or MONTHLY, all time if missing")
+                                               @RequestParam(value = "period", required = false) LeaderboardPeriod period,
+                                               @ApiParam(value = "Number of buckets. Should be positive int, at most 100")
+                                               @RequestParam(value = "buckets", defaultValue = "20") int buckets) throws Exception {
+        return gameService.getScoreHistogram(period, buckets);
+    }
+
+    /**
+     * This method maps POST Request to /scores/validation/replay.
+     * Checks every saved game for implausible scores again, requires an admin.
+     * It returns when all games are checked, which takes a while on a large game table.
+     *
+     * @param dryRun Count suspicious games without flagging them
+     * @return Number of checked and suspicious games
+     * @throws Exception if validation is disabled or a replay is already running
+     */
+    @PostMapping(value = "/scores/validation/replay")
+    @ApiOperation(value = "Checks all saved games for implausible scores and flags them",
+            notes = "Requires a valid Jwt token of an admin. Flagged games are left out of leaderboards",
+            response = ScoreValidationReplayDao.class)
+    public ScoreValidationReplayDao replayScoreValidation(@ApiParam(value = "Only count suspicious games without flagging them")
+                                                          @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) throws Exception {
+        return scoreValidationPipeline.replay(dryRun);
+    }
+
+    /**
+     * This method answers a leaderboard request with validators and caching headers,
+     * and only loads the leaderboard when the client's copy is outdated.
+     * In pre-serialized mode JSON bodies of the global leaderboards are the shared encoded payload of the current
+     * version, gzip compressed when the client accepts it. Clients preferring CBOR and season and mode
+     * leaderboards always get a freshly encoded list.
+     *
+     * @param leaderboardKey Season and mode of the leaderboard, null for the global leaderboard
+     * @param period         Time window of the leaderboard
+     * @param pageLimit      Size of the returning list
+     * @param webRequest     Request holding conditional headers
+     * @param loader         Loads the leaderboard
+     * @return 304 with no body if the client's copy is current, otherwise 200 with the leaderboard
+     * @throws Exception if the leaderboard cannot be loaded or the pre-serialized payload cannot be encoded
+     */
+    private ResponseEntity<?> conditionalLeaderboard(LeaderboardKey leaderboardKey, LeaderboardPeriod period, int pageLimit,
+                                                     WebRequest webRequest, Callable<List<GameDao>> loader) throws Exception {
+        boolean preserialized = leaderboardPreserialized && leaderboardKey == null;
+        // Validators are read before loading, so a game saved meanwhile makes the tag stale rather than the body
+        String eTag = leaderboardVersion.getETag(leaderboardKey, period, pageLimit);
+        long lastModified = leaderboardVersion.getLastModified();
+        CacheControl cacheControl = CacheControl.maxAge(leaderboardMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+        boolean cbor = prefersCbor(webRequest);
+        boolean gzip = false;
+        if (cbor) {
+            // JSON and CBOR of a version are different representations, so they need different strong tags
+            eTag = eTag.substring(0, eTag.length() - 1) + "-cbor\"";
+        } else if (preserialized) {
+            gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (gzip) {
+                // Both encodings of a version are different representations, so they need different strong tags
+                eTag = eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+            }
+        }
+        // A 304 carries the same Vary as the 200 it stands for, so caches keep JSON, CBOR and gzip apart
+        String[] vary = preserialized
+                ? new String[]{HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING}
+                : new String[]{HttpHeaders.ACCEPT};
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).varyBy(vary).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .varyBy(vary);
+        if (cbor || !preserialized) {
+            return builder.body(loader.call());
+        }
+
+        LeaderboardPayload payload = gameService.getLeaderboardPayload(period, pageLimit);
+        builder.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return builder.body(payload.getJson());
+    }
+
+    /**
+     * This method checks whether the most preferred media type of the Accept header is CBOR rather than JSON.
+     * Wildcards resolve to JSON, the same way the message converters are ordered.
+     *
+     * @param webRequest Request holding the Accept header
+     * @return true if the response will be encoded as CBOR
+     */
+    private static boolean prefersCbor(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(MediaType.APPLICATION_CBOR_VALUE)) {
+            return false;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method checks whether an Accept-Encoding header allows gzip. An explicit gzip entry decides by its
+     * quality, so "gzip;q=0" refuses it, and otherwise a "*" entry with a positive quality allows it.
+     *
+     * @param acceptEncoding Accept-Encoding header, may be null
+     * @return true if the response may be gzip compressed
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return quality > 0;
+            }
+            if (coding.equals("*")) {
+                wildcard = quality > 0;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard_weekly/stream as a Server-Sent Events subscription.
+     *
+     * @param pageLimit Size of the followed top-N. Should be between 1 and 100
+     * @return Emitter of a "snapshot" event followed by "delta" events
+     * @throws Exception if page limit is out of range
+     */
+    @GetMapping(value = "/leaderboard_weekly/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Subscribes to changes of the top N(pageLimit) scores of last week",
+            notes = "Sends the current ranking once, then only the entries whose rank or score changed")
+    public SseEmitter streamWeeklyRecords(@ApiParam(value = "Page limit of the followed ranking. Should be between 1 and 100")
+                                          @RequestParam(value = "pageLimit") int pageLimit) throws Exception {
+        return leaderboardPushService.subscribe(LeaderboardPeriod.WEEKLY, pageLimit);
+    }
+
+    /**
+     * This method maps GET Request to /leaderboard_monthly/stream as a Server-Sent Events subscription.
+     *
+     * @param pageLimit Size of the followed top-N. Should be between 1 and 100
+     * @return Emitter of a "snapshot" event followed by "delta" events
+     * @throws Exception if page limit is out of range
+     */
+    @GetMapping(value = "/leaderboard_monthly/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Subscribes to changes of the top N(pageLimit) scores of last month",
+            notes = "Sends the current ranking once, then only the entries whose rank or score changed")
+    public SseEmitter streamMonthlyRecords(@ApiParam(value = "Page limit of the followed ranking. Should be between 1 and 100")
+                                           @RequestParam(value = "pageLimit") int pageLimit) throws Exception {
+        return leaderboardPushService.subscribe(LeaderboardPeriod.MONTHLY, pageLimit);
     }
 }
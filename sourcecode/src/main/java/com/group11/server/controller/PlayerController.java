@@ -1,19 +1,24 @@
 package com.group11.server.controller;
 
+import com.group11.server.dao.PlayerDao;
+import com.group11.server.dao.PlayerStatsDao;
 import com.group11.server.model.Player;
 import com.group11.server.repository.PlayerRepository;
 import com.group11.server.service.PlayerService;
 import com.group11.server.service.PlayerServiceImpl;
+import com.group11.server.service.PlayerStatsService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.RequiredArgsConstructor;
 import net.bytebuddy.utility.RandomString;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.mail.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +32,7 @@ public class PlayerController {
 
     private final PlayerService playerService;
     private final PlayerRepository playerRepository;
+    private final PlayerStatsService playerStatsService;
 
     /**
      * This method maps POST request to /login.
@@ -62,32 +68,88 @@ public class PlayerController {
     /**
      * This method maps GET request to /players.
      *
-     * @return List of all users
+     * @param afterId ID of the last player of the previous page
+     * @param pageLimit Size of the returning list
+     * @return A page of players ordered by ID
+     * @throws Exception if page limit is not positive
      */
-    @GetMapping("/players")
-    @ApiOperation(value = "Gets all player from database",
-            notes = "Needs no parameter",
-            response = List.class)
-    public List<Player> getAllPlayers() {
-        return playerService.getAllPlayers();
+    @GetMapping(value = "/players", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets a page of the player directory ordered by ID",
+            notes = "Provide the ID of the last player of the previous page as afterId to receive the next page",
+            response = PlayerDao.class,
+            responseContainer = "List")
+    public List<PlayerDao> getPlayerDirectory(@ApiParam(value = "ID of the last player of the previous page, 0 for the first page")
+                                              @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+                                              @ApiParam(value = "Size of the returning list. Should be positive int, at most 1000")
+                                              @RequestParam(value = "pageLimit", defaultValue = "100") int pageLimit) throws Exception {
+        return playerService.getPlayerDirectory(afterId, pageLimit);
+    }
+
+    /**
+     * This method maps GET request to /players/export.
+     * Streams every player as newline delimited JSON, requires an authenticated user.
+     *
+     * @return Streaming body of all players ordered by ID
+     */
+    @GetMapping("/players/export")
+    @ApiOperation(value = "Exports the whole player directory as newline delimited JSON",
+            notes = "Requires a valid Jwt token",
+            response = PlayerDao.class,
+            responseContainer = "List")
+    public ResponseEntity<StreamingResponseBody> exportPlayerDirectory() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(playerService::exportPlayerDirectory);
     }
 
     /**
      * This method maps GET request to /player.
      *
      * @param Id ID of the user that is wanted
-     * @return Player with the given ID
+     * @return ID, username and email of the player with the given ID
      * @throws Exception if ID does not exist or user is deleted
      */
-    @GetMapping("/player")
+    @GetMapping(value = "/player", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     @ApiOperation(value = "Gets the player from the provided ID",
             notes = "Provide ID to receive the player information",
-            response = Player.class)
-    public Player getPlayer(@ApiParam(value = "ID of the player that is wanted")
+            response = PlayerDao.class)
+    public PlayerDao getPlayer(@ApiParam(value = "ID of the player that is wanted")
                         @RequestParam(value = "id") Long Id) throws Exception {
         return playerService.getPlayer(Id);
     }
 
+    /**
+     * This method maps GET request to /player/stats.
+     *
+     * @param Id ID of the player whose statistics are wanted
+     * @return Statistics of the player with the given ID
+     * @throws Exception if ID does not exist
+     */
+    @GetMapping(value = "/player/stats", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @ApiOperation(value = "Gets games played, best and average score, score of this week and current streak of the player",
+            notes = "Provide ID to receive the statistics of that player",
+            response = PlayerStatsDao.class)
+    public PlayerStatsDao getPlayerStats(@ApiParam(value = "ID of the player whose statistics are wanted")
+                                         @RequestParam(value = "id") Long Id) throws Exception {
+        return playerStatsService.getPlayerStats(Id);
+    }
+
+    /**
+     * This method maps POST request to /player/stats/rebuild.
+     * Starts recomputing statistics of all players from their games in the background, requires an admin.
+     *
+     * @return 202 Accepted once the rebuild is started
+     * @throws Exception if a rebuild is already running
+     */
+    @PostMapping("/player/stats/rebuild")
+    @ApiOperation(value = "Starts recomputing statistics of all players from saved games",
+            notes = "Requires a valid Jwt token of an admin. The rebuild runs in the background and its outcome is logged",
+            response = String.class)
+    public ResponseEntity<?> rebuildPlayerStats() throws Exception {
+        playerStatsService.startRebuildPlayerStats();
+        return ResponseEntity.accepted().body("Rebuilding player statistics.");
+    }
+
     /**
      * This method maps POST request to /register.
      * It saves new valid Player to database.
@@ -0,0 +1,56 @@
+package com.group11.server.controller;
+
+import com.group11.server.dao.GameDao;
+import com.group11.server.service.GameService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin
+@RequestMapping("/api/reactive")
+@Api(value = "Reactive leaderboard REST Endpoints", description = "Non-blocking variants of the leaderboard endpoints")
+public class ReactiveLeaderboardController {
+
+    private final GameService gameService;
+
+    /**
+     * This method maps GET Request to /reactive/leaderboard_weekly.
+     * The request thread is released while the query runs and the response is written when rows arrive.
+     *
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return A stream of last week's players ordered by Score
+     * @throws Exception if page limit is not positive
+     */
+    @GetMapping("/leaderboard_weekly")
+    @ApiOperation(value = "Gets highest N(pageLimit) scores of last week without blocking a request thread",
+            notes = "Provide page limit for receiving that number of elements in returning list",
+            response = GameDao.class,
+            responseContainer = "List")
+    public Flux<GameDao> getWeeklyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                          @RequestParam(value = "pageLimit") int pageLimit) throws Exception {
+        return gameService.getWeeklyGameRecordFlux(pageLimit);
+    }
+
+    /**
+     * This method maps GET Request to /reactive/leaderboard_monthly.
+     * The request thread is released while the query runs and the response is written when rows arrive.
+     *
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return A stream of last month's players ordered by Score
+     * @throws Exception if page limit is not positive
+     */
+    @GetMapping("/leaderboard_monthly")
+    @ApiOperation(value = "Gets highest N(pageLimit) scores of last month without blocking a request thread",
+            notes = "Provide page limit for receiving that number of elements in returning list",
+            response = GameDao.class,
+            responseContainer = "List")
+    public Flux<GameDao> getMonthlyRecords(@ApiParam(value = "Page limit for receiving that number of elements in returning list. Should be positive int")
+                                           @RequestParam(value = "pageLimit") int pageLimit) throws Exception {
+        return gameService.getMonthlyGameRecordFlux(pageLimit);
+    }
+}
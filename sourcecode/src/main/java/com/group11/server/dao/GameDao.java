@@ -1,5 +1,6 @@
 package com.group11.server.dao;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -15,4 +16,16 @@ public class GameDao {
      * Score of the user
      */
     private Integer score;
+
+    /**
+     * Season of the leaderboard, only present in season or mode leaderboards
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String season;
+
+    /**
+     * Game mode of the leaderboard, only present in season or mode leaderboards
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String mode;
 }
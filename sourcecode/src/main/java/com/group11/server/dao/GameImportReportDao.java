@@ -0,0 +1,49 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameImportReportDao {
+    /**
+     * File name of the imported file
+     */
+    private String source;
+
+    /**
+     * Number of games imported by this run
+     */
+    private long imported;
+
+    /**
+     * Number of lines rejected by this run
+     */
+    private long rejected;
+
+    /**
+     * Number of lines skipped because an earlier run committed them
+     */
+    private long resumedLines;
+
+    /**
+     * Duration of this run in seconds
+     */
+    private double seconds;
+
+    /**
+     * Imported games per second
+     */
+    private double rowsPerSecond;
+
+    /**
+     * Earliest end time of the games imported from the file, also by earlier runs, null if none was imported
+     */
+    private LocalDate earliestEndTime;
+}
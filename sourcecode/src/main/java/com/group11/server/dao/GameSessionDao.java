@@ -0,0 +1,34 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameSessionDao {
+    /**
+     * ID of the session, needed for heartbeats and finishing the game
+     */
+    private String sessionId;
+
+    /**
+     * Username of the player of the session
+     */
+    private String username;
+
+    /**
+     * Last score reported by the client
+     */
+    private Integer score;
+
+    /**
+     * Time the session started
+     */
+    private LocalDateTime startTime;
+}
@@ -0,0 +1,27 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDeltaDao {
+    /**
+     * 1-based rank of the player, null if the player dropped out of the top-N
+     */
+    private Integer rank;
+
+    /**
+     * The username of the record owner
+     */
+    private String username;
+
+    /**
+     * Total score of the user, null if the player dropped out of the top-N
+     */
+    private Integer score;
+}
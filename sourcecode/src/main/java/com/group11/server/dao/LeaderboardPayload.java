@@ -0,0 +1,22 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Leaderboard page already encoded as JSON, plus its gzip compressed variant,
+ * shared by every request for the same leaderboard version.
+ */
+@Getter
+@AllArgsConstructor
+public class LeaderboardPayload {
+
+    /**
+     * Entity tag of the leaderboard version the payload was encoded from
+     */
+    private final String eTag;
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+}
@@ -0,0 +1,36 @@
+package com.group11.server.dao;
+
+import com.group11.server.model.LeaderboardPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshotDao {
+    /**
+     * Kind of period, weekly or monthly
+     */
+    private LeaderboardPeriod period;
+
+    /**
+     * First day of the period
+     */
+    private LocalDate periodStart;
+
+    /**
+     * Last day of the period
+     */
+    private LocalDate periodEnd;
+
+    /**
+     * Final ranking of the period, ordered by rank
+     */
+    private List<RankedGameDao> ranking;
+}
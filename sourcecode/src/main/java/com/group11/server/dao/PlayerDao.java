@@ -0,0 +1,34 @@
+package com.group11.server.dao;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerDao {
+    /**
+     * Unique Id of the player
+     */
+    private Long id;
+
+    /**
+     * Username of the player
+     */
+    private String username;
+
+    /**
+     * Email of the player, only present in the single player response
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String email;
+
+    public PlayerDao(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
@@ -0,0 +1,42 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerStatsDao {
+    /**
+     * Username of the player
+     */
+    private String username;
+
+    /**
+     * Number of games played
+     */
+    private long gamesPlayed;
+
+    /**
+     * Highest score of a single game
+     */
+    private int bestScore;
+
+    /**
+     * Average score per game
+     */
+    private double averageScore;
+
+    /**
+     * Total score of the games played this week, starting on Monday
+     */
+    private long weekScore;
+
+    /**
+     * Number of consecutive days played up to today or yesterday
+     */
+    private int currentStreak;
+}
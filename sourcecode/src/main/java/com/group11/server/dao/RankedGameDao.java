@@ -0,0 +1,27 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedGameDao {
+    /**
+     * 1-based rank of the player, players with equal scores are ordered by username
+     */
+    private int rank;
+
+    /**
+     * The username of the record owner
+     */
+    private String username;
+
+    /**
+     * Total score of the user
+     */
+    private Integer score;
+}
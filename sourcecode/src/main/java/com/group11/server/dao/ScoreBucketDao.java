@@ -0,0 +1,27 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreBucketDao {
+    /**
+     * Lowest score of the bucket, inclusive
+     */
+    private long from;
+
+    /**
+     * Highest score of the bucket, inclusive
+     */
+    private long to;
+
+    /**
+     * Number of games with a score in the bucket
+     */
+    private long games;
+}
@@ -0,0 +1,29 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreHistogramDao {
+    /**
+     * Time window of the games, weekly, monthly or all_time
+     */
+    private String period;
+
+    /**
+     * Number of games in the time window
+     */
+    private long games;
+
+    /**
+     * Equal width buckets from zero up to the highest score
+     */
+    private List<ScoreBucketDao> buckets;
+}
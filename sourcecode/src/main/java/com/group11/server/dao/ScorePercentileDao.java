@@ -0,0 +1,32 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScorePercentileDao {
+    /**
+     * Score that is looked up
+     */
+    private Integer score;
+
+    /**
+     * Time window of the games, weekly, monthly or all_time
+     */
+    private String period;
+
+    /**
+     * Number of games in the time window
+     */
+    private long games;
+
+    /**
+     * Percentage of games in the time window with the same or a lower score
+     */
+    private double percentile;
+}
@@ -0,0 +1,27 @@
+package com.group11.server.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreValidationReplayDao {
+    /**
+     * Number of games checked by the replay
+     */
+    private long games;
+
+    /**
+     * Number of games found suspicious
+     */
+    private long suspicious;
+
+    /**
+     * Whether suspicious games were only counted and not flagged
+     */
+    private boolean dryRun;
+}
@@ -0,0 +1,51 @@
+package com.group11.server.event;
+
+import com.group11.server.model.LeaderboardKey;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Published after a finished game is saved, so in-memory leaderboard state can follow new scores
+ * without querying the game table. A game flagged by score validation is retracted with an event of the same game
+ * marked as retracted.
+ */
+@Getter
+@AllArgsConstructor
+public class GameRecordedEvent {
+
+    /**
+     * Username of the Player in the Game
+     */
+    private final String username;
+
+    /**
+     * Player's score
+     */
+    private final Integer score;
+
+    /**
+     * The time that game ended
+     */
+    private final LocalDate endTime;
+
+    /**
+     * Key of the separate leaderboard of the game, null if it has none
+     */
+    private final LeaderboardKey leaderboardKey;
+
+    /**
+     * True if the game is taken out of leaderboards again, false if it is added
+     */
+    private final boolean retracted;
+
+    /**
+     * ID of the change log entry the event was read from, null for games saved by this instance
+     */
+    private final Long changeId;
+
+    public GameRecordedEvent(String username, Integer score, LocalDate endTime, LeaderboardKey leaderboardKey) {
+        this(username, score, endTime, leaderboardKey, false, null);
+    }
+}
@@ -0,0 +1,28 @@
+package com.group11.server.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a game submitted to this instance is saved, so it can be validated off the request path.
+ * Unlike GameRecordedEvent it is not published for games saved by other instances of a cluster.
+ */
+@Getter
+@AllArgsConstructor
+public class GameSubmittedEvent {
+
+    /**
+     * ID of the saved Game
+     */
+    private final Long gameId;
+
+    /**
+     * Username of the Player in the Game
+     */
+    private final String username;
+
+    /**
+     * Player's score
+     */
+    private final Integer score;
+}
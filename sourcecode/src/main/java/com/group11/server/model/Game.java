@@ -7,12 +7,18 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_game_username_idempotency_key",
+        columnNames = {"username", "idempotencyKey"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,6 +26,8 @@ import java.time.LocalDate;
 @ApiModel(description = "Game's details")
 public class Game {
 
+    public static final int IDEMPOTENCY_KEY_MAX_LENGTH = 64;
+
     /**
      * Unique Id for Games
      */
@@ -46,9 +54,42 @@ public class Game {
     @ApiModelProperty(notes = "Activeness value of the game")
     private Boolean activity;
 
+    /**
+     * The time that game started, null for games that were submitted only with their score
+     */
+    @ApiModelProperty(notes = "Start time of the game")
+    private LocalDateTime startTime;
+
     /**
      * The time that game ended
      */
     @ApiModelProperty(notes = "End time of the game")
     private LocalDate endTime;
+
+    /**
+     * Key the client sent with the game, unique per player so a retried submission cannot be saved twice
+     */
+    @Column(length = IDEMPOTENCY_KEY_MAX_LENGTH)
+    @ApiModelProperty(notes = "Idempotency key of the submission")
+    private String idempotencyKey;
+
+    /**
+     * Season the game was played in, null for games outside of seasons
+     */
+    @Column(length = LeaderboardKey.MAX_LENGTH)
+    @ApiModelProperty(notes = "Season of the game")
+    private String season;
+
+    /**
+     * Game mode the game was played in, null for the default mode
+     */
+    @Column(length = LeaderboardKey.MAX_LENGTH)
+    @ApiModelProperty(notes = "Game mode of the game")
+    private String mode;
+
+    /**
+     * Set by score validation when the score is implausible for the player, such games are left out of leaderboards
+     */
+    @ApiModelProperty(notes = "Whether score validation flagged the game")
+    private Boolean suspicious;
 }
@@ -0,0 +1,84 @@
+package com.group11.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entry of the change log that instances of a cluster tail to keep their in-memory leaderboard state
+ * up to date with games saved by other instances.
+ */
+@Entity
+@Table(name = "game_change", indexes = @Index(name = "idx_game_change_created_at", columnList = "createdAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameChange {
+
+    /**
+     * Position in the change log. Identity values are increasing, but a transaction can commit after
+     * one that got a higher value, so readers have to expect temporary gaps.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID of the changed game
+     */
+    private Long gameId;
+
+    /**
+     * Username of the player of the game
+     */
+    private String username;
+
+    /**
+     * Score of the game
+     */
+    private Integer score;
+
+    /**
+     * End time of the game
+     */
+    private LocalDate endTime;
+
+    /**
+     * Season of the game, null if it has none
+     */
+    @Column(length = LeaderboardKey.MAX_LENGTH)
+    private String season;
+
+    /**
+     * Game mode of the game, null if it has none
+     */
+    @Column(length = LeaderboardKey.MAX_LENGTH)
+    private String mode;
+
+    /**
+     * True if the change takes the game out of leaderboards, false or null if it adds the game
+     */
+    private Boolean retracted;
+
+    /**
+     * ID of the instance that wrote the change
+     */
+    private String node;
+
+    /**
+     * Time the change was written, used to purge old entries
+     */
+    private LocalDateTime createdAt;
+}
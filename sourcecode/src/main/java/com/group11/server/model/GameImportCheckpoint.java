@@ -0,0 +1,56 @@
+package com.group11.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk game import. It is written in the same transaction as every imported chunk,
+ * so an interrupted import resumes after the last committed chunk without importing a record twice.
+ */
+@Entity
+@Table(name = "game_import_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameImportCheckpoint {
+
+    /**
+     * File name of the imported file and SHA-256 hash of its content, separated by @
+     */
+    @Id
+    private String source;
+
+    /**
+     * Number of records of the file that are committed, including the CSV header record
+     */
+    private long lines;
+
+    /**
+     * Number of games imported so far
+     */
+    private long imported;
+
+    /**
+     * Number of records rejected so far
+     */
+    private long rejected;
+
+    /**
+     * Earliest end time of the games imported so far, null before the first one
+     */
+    private LocalDate earliestEndTime;
+
+    /**
+     * Time of the last committed chunk
+     */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,70 @@
+package com.group11.server.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Season and game mode of a separate leaderboard. A game belongs to the board of exactly its season and mode,
+ * and either of them may be missing. Games without both belong to no separate board.
+ * Every game, with or without a key, still counts in the global leaderboards.
+ */
+@Getter
+@EqualsAndHashCode
+public final class LeaderboardKey {
+
+    public static final int MAX_LENGTH = 32;
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]{1," + MAX_LENGTH + "}");
+
+    /**
+     * Season of the games, may be null
+     */
+    private final String season;
+
+    /**
+     * Game mode of the games, may be null
+     */
+    private final String mode;
+
+    private LeaderboardKey(String season, String mode) {
+        this.season = season;
+        this.mode = mode;
+    }
+
+    /**
+     * This method validates a season and mode and makes their key.
+     *
+     * @param season Season name, may be null or empty
+     * @param mode   Game mode name, may be null or empty
+     * @return Key of the board, or null for the global leaderboards if both are missing
+     * @throws Exception if a name has other characters than letters, digits, '_', '.' and '-' or is too long
+     */
+    public static LeaderboardKey of(String season, String mode) throws Exception {
+        season = season == null || season.isEmpty() ? null : season;
+        mode = mode == null || mode.isEmpty() ? null : mode;
+        if (season == null && mode == null) return null;
+        if (season != null && !NAME.matcher(season).matches())
+            throw new Exception("Season should be 1 to " + MAX_LENGTH + " letters, digits, '_', '.' or '-'.");
+        if (mode != null && !NAME.matcher(mode).matches())
+            throw new Exception("Mode should be 1 to " + MAX_LENGTH + " letters, digits, '_', '.' or '-'.");
+        return new LeaderboardKey(season, mode);
+    }
+
+    /**
+     * This method makes the key of names that were validated when they were saved.
+     *
+     * @param season Season name, may be null
+     * @param mode   Game mode name, may be null
+     * @return Key of the board, or null if both are missing
+     */
+    public static LeaderboardKey ofSaved(String season, String mode) {
+        return season == null && mode == null ? null : new LeaderboardKey(season, mode);
+    }
+
+    @Override
+    public String toString() {
+        return (season == null ? "" : season) + "/" + (mode == null ? "" : mode);
+    }
+}
@@ -0,0 +1,58 @@
+package com.group11.server.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Rolling time windows that leaderboards are ranked over.
+ * Closed periods of leaderboard history are the calendar weeks, Monday to Sunday, and calendar months instead.
+ */
+public enum LeaderboardPeriod {
+    /**
+     * Games that ended in the last 7 days
+     */
+    WEEKLY(7),
+
+    /**
+     * Games that ended in the last 30 days
+     */
+    MONTHLY(30);
+
+    private final int days;
+
+    LeaderboardPeriod(int days) {
+        this.days = days;
+    }
+
+    /**
+     * @return Number of days in the window, including today
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * @param today Current day
+     * @return First day of the window
+     */
+    public LocalDate getStart(LocalDate today) {
+        return today.minusDays(days - 1);
+    }
+
+    /**
+     * @param day Any day
+     * @return First day of the calendar week or month containing the day
+     */
+    public LocalDate getCalendarStart(LocalDate day) {
+        return this == WEEKLY ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day.withDayOfMonth(1);
+    }
+
+    /**
+     * @param calendarStart First day of a calendar week or month
+     * @return Last day of that calendar week or month
+     */
+    public LocalDate getCalendarEnd(LocalDate calendarStart) {
+        return this == WEEKLY ? calendarStart.plusDays(6) : calendarStart.with(TemporalAdjusters.lastDayOfMonth());
+    }
+}
@@ -0,0 +1,72 @@
+package com.group11.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a closed calendar week or month whose final ranking is stored in leaderboard_snapshot_entry.
+ * It is written in the same transaction as the entries, so a period either has its whole ranking or none,
+ * and a period without games is not ranked again.
+ */
+@Entity
+@Table(name = "leaderboard_snapshot")
+@IdClass(LeaderboardSnapshot.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshot {
+
+    /**
+     * Kind of period, weekly or monthly
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    private LeaderboardPeriod period;
+
+    /**
+     * First day of the period
+     */
+    @Id
+    private LocalDate periodStart;
+
+    /**
+     * Last day of the period
+     */
+    private LocalDate periodEnd;
+
+    /**
+     * Number of ranked players
+     */
+    private int players;
+
+    /**
+     * Time the snapshot was taken
+     */
+    private LocalDateTime createdAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LeaderboardPeriod period;
+        private LocalDate periodStart;
+    }
+}
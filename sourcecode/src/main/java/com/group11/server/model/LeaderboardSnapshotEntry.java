@@ -0,0 +1,74 @@
+package com.group11.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One player's final rank in a closed calendar week or month. The primary key starts with the period and its
+ * first day and ends with the rank, so the top of a period is a single range read of the primary key.
+ */
+@Entity
+@Table(name = "leaderboard_snapshot_entry")
+@IdClass(LeaderboardSnapshotEntry.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshotEntry {
+
+    /**
+     * Kind of period, weekly or monthly
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    private LeaderboardPeriod period;
+
+    /**
+     * First day of the period
+     */
+    @Id
+    private LocalDate periodStart;
+
+    /**
+     * 1-based rank of the player, players with equal scores are ordered by username
+     */
+    @Id
+    @Column(name = "ranking")
+    private int rank;
+
+    /**
+     * Username of the player
+     */
+    private String username;
+
+    /**
+     * Total score of the player's games in the period
+     */
+    private Integer score;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LeaderboardPeriod period;
+        private LocalDate periodStart;
+        private int rank;
+    }
+}
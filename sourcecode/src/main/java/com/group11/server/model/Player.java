@@ -1,18 +1,27 @@
 package com.group11.server.model;
 
+import com.group11.server.CacheConfig;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.PLAYER_REGION)
+@NaturalIdCache(region = CacheConfig.PLAYER_NATURAL_ID_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,6 +40,7 @@ public class Player {
     /**
      * Player's username
      */
+    @NaturalId
     @Column(unique = true)
     @ApiModelProperty(notes = "Player's unique username")
     private String username;
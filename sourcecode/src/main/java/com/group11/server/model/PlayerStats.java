@@ -0,0 +1,69 @@
+package com.group11.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Running aggregate of a player's games. It is updated together with every saved game,
+ * so reading a player profile does not scan the player's games.
+ */
+@Entity
+@Table(name = "player_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerStats {
+
+    /**
+     * Username of the player
+     */
+    @Id
+    private String username;
+
+    /**
+     * Number of saved games
+     */
+    private long gamesPlayed;
+
+    /**
+     * Sum of scores of all games
+     */
+    private long totalScore;
+
+    /**
+     * Highest score of a single game
+     */
+    private int bestScore;
+
+    /**
+     * Monday of the week that weekScore belongs to
+     */
+    private LocalDate weekStart;
+
+    /**
+     * Sum of scores of the games that ended in the week starting at weekStart
+     */
+    private long weekScore;
+
+    /**
+     * Last day the player finished a game
+     */
+    private LocalDate lastPlayed;
+
+    /**
+     * Number of consecutive days with at least one game, ending at lastPlayed
+     */
+    private int streak;
+
+    public PlayerStats(String username) {
+        this.username = username;
+    }
+}
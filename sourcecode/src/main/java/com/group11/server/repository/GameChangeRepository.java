@@ -0,0 +1,57 @@
+package com.group11.server.repository;
+
+import com.group11.server.model.GameChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GameChangeRepository extends JpaRepository<GameChange, Long> {
+
+    /**
+     * This method is a query to get the next changes of the change log.
+     * @param afterId is the ID after which changes are read.
+     * @param pageable is the parameter for paging query.
+     * @return changes ordered by ID
+     */
+    List<GameChange> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * This method is a query to get the ID of the newest change.
+     * @return the highest ID or null if the change log is empty
+     */
+    @Query("SELECT MAX(c.id) FROM GameChange c")
+    Long findMaxId();
+
+    /**
+     * This method is a query to get the ID of the newest change written before a time.
+     * @param createdAt is the time before which changes are looked at.
+     * @return the highest ID or null if there is no such change
+     */
+    @Query("SELECT MAX(c.id) FROM GameChange c WHERE c.createdAt < :createdAt")
+    Long findMaxIdCreatedBefore(LocalDateTime createdAt);
+
+    /**
+     * This method is a query to get the IDs of the changes after a change.
+     * @param afterId is the ID after which changes are read.
+     * @return IDs of the visible changes
+     */
+    @Query("SELECT c.id FROM GameChange c WHERE c.id > :afterId")
+    List<Long> findIdsAfter(Long afterId);
+
+    /**
+     * This method deletes changes that every instance has read long ago.
+     * @param createdAt is the time before which changes are deleted.
+     * @return number of deleted changes
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GameChange c WHERE c.createdAt < :createdAt")
+    int deleteCreatedBefore(LocalDateTime createdAt);
+}
@@ -2,15 +2,48 @@ package com.group11.server.repository;
 import com.group11.server.model.Game;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
 
+    /**
+     * Native query of total scores per player in the games that ended in the last 7 days.
+     * It is shared with the reactive leaderboard repository so both APIs rank the same way.
+     */
+    String LEADERBOARD_WEEKLY_QUERY = "SELECT p.username, SUM(g.score) as sum_score " +
+            "FROM game g, player p " +
+            "WHERE g.end_time < current_date()+1 " +
+            "AND g.end_time > current_date()-7 " +
+            "AND g.username = p.username " +
+            "AND g.suspicious IS NOT TRUE " +
+            "GROUP BY g.username " +
+            "ORDER BY sum_score DESC";
+
+    /**
+     * Native query of total scores per player in the games that ended in the last 30 days.
+     */
+    String LEADERBOARD_MONTHLY_QUERY = "SELECT p.username, SUM(g.score) as sum_score " +
+            "FROM game g, player p " +
+            "WHERE g.end_time < current_date()+1 " +
+            "AND g.end_time > current_date()-30 " +
+            "AND g.username = p.username " +
+            "AND g.suspicious IS NOT TRUE " +
+            "GROUP BY g.username " +
+            "ORDER BY sum_score DESC";
+
     /**
      * This method is a query to get all the games in the Game table
      * @param pageable is the parameter for paging query.
@@ -86,13 +119,7 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      * @param pageable is the parameter for paging query.
      * @return list of players with their overall scores
      */
-    @Query(value = "SELECT p.username, SUM(g.score) as sum_score " +
-            "FROM game g, player p " +
-            "WHERE g.end_time < current_date()+1 " +
-            "AND g.end_time > current_date()-7 " +
-            "AND g.username = p.username " +
-            "GROUP BY g.username " +
-            "ORDER BY sum_score DESC", nativeQuery = true)
+    @Query(value = LEADERBOARD_WEEKLY_QUERY, nativeQuery = true)
     List<Object[]> findLeaderboardWeekly(Pageable pageable);
 
     /**
@@ -101,15 +128,85 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      * @param pageable is the parameter for paging query.
      * @return list of players with their overall scores
      */
-    @Query(value = "SELECT p.username, SUM(g.score) as sum_score " +
-            "FROM game g, player p " +
-            "WHERE g.end_time < current_date()+1 " +
-            "AND g.end_time > current_date()-30 " +
-            "AND g.username = p.username " +
-            "GROUP BY g.username " +
-            "ORDER BY sum_score DESC", nativeQuery = true)
+    @Query(value = LEADERBOARD_MONTHLY_QUERY, nativeQuery = true)
     List<Object[]> findLeaderboardMonthly(Pageable pageable);
 
+    /**
+     * This method is a query to get the games of several players aggregated per day,
+     * which is enough to rebuild their statistics without loading single games.
+     * @param usernames is the usernames of the players.
+     * @return username, end date, number of games, sum of scores and best score, ordered by username and date
+     */
+    @Query("SELECT g.username, g.endTime, COUNT(g), SUM(g.score), MAX(g.score) " +
+            "FROM Game g " +
+            "WHERE g.username IN :usernames " +
+            "AND (g.suspicious IS NULL OR g.suspicious = false) " +
+            "GROUP BY g.username, g.endTime " +
+            "ORDER BY g.username, g.endTime")
+    List<Object[]> findDailyTotalsByUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * This method streams total scores per player, day, season and mode of all games of existing players.
+     * It must be consumed inside a transaction and closed afterwards.
+     * @return username, end date, sum of scores, season, mode and number of games, ordered by username and date
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT g.username, g.endTime, SUM(g.score), g.season, g.mode, COUNT(g) " +
+            "FROM Game g, Player p " +
+            "WHERE g.username = p.username " +
+            "AND g.endTime IS NOT NULL " +
+            "AND (g.suspicious IS NULL OR g.suspicious = false) " +
+            "GROUP BY g.username, g.endTime, g.season, g.mode " +
+            "ORDER BY g.username, g.endTime")
+    Stream<Object[]> streamDailyTotals();
+
+    /**
+     * This method streams the number of games per end date and score.
+     * It must be consumed inside a transaction and closed afterwards.
+     * @return end date, score and number of games
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT g.endTime, g.score, COUNT(g) " +
+            "FROM Game g " +
+            "WHERE g.suspicious IS NULL OR g.suspicious = false " +
+            "GROUP BY g.endTime, g.score")
+    Stream<Object[]> streamScoreCounts();
+
+    /**
+     * This method reads a game and locks it until the transaction ends.
+     * @param id is the ID of the game.
+     * @return the game if it exists
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM Game g WHERE g.id = :id")
+    Optional<Game> findForUpdate(@Param("id") Long id);
+
+    /**
+     * This method is a query to get the best score of a player among the games that were not flagged.
+     * @param username is the username of the player.
+     * @return the best score or null if the player has no such games
+     */
+    @Query("SELECT MAX(g.score) FROM Game g " +
+            "WHERE g.username = :username " +
+            "AND (g.suspicious IS NULL OR g.suspicious = false)")
+    Integer findBestScore(@Param("username") String username);
+
+    /**
+     * This method is a query to get the next games in ID order, used to replay score validation over history.
+     * @param afterId is the ID after which games are read.
+     * @param pageable is the parameter for paging query.
+     * @return games ordered by ID
+     */
+    List<Game> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * This method is a query to get the game a player submitted with an idempotency key.
+     * @param username is the username of the player.
+     * @param idempotencyKey is the key sent with the submission.
+     * @return the game if it was saved
+     */
+    Optional<Game> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+
     /**
      * This method is a query to get singular game by id and score
      * @return the requested game
@@ -0,0 +1,46 @@
+package com.group11.server.repository;
+
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.model.LeaderboardSnapshotEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LeaderboardSnapshotEntryRepository extends JpaRepository<LeaderboardSnapshotEntry, LeaderboardSnapshotEntry.Key> {
+
+    /**
+     * This method reads the top of a closed period's ranking as a range of the primary key.
+     *
+     * @param period      Kind of period
+     * @param periodStart First day of the period
+     * @param lastRank    Last rank to read
+     * @return ranked players ordered by rank
+     */
+    @Query("SELECT new com.group11.server.dao.RankedGameDao(e.rank, e.username, e.score) " +
+            "FROM LeaderboardSnapshotEntry e " +
+            "WHERE e.period = :period " +
+            "AND e.periodStart = :periodStart " +
+            "AND e.rank <= :lastRank " +
+            "ORDER BY e.rank")
+    List<RankedGameDao> findRanking(@Param("period") LeaderboardPeriod period,
+                                    @Param("periodStart") LocalDate periodStart,
+                                    @Param("lastRank") int lastRank);
+
+    /**
+     * This method deletes the rankings of the periods starting on or after a day.
+     *
+     * @param period      Kind of period
+     * @param periodStart First day of the first deleted period
+     * @return number of deleted entries
+     */
+    @Modifying
+    @Query("DELETE FROM LeaderboardSnapshotEntry e WHERE e.period = :period AND e.periodStart >= :periodStart")
+    int deleteFrom(@Param("period") LeaderboardPeriod period, @Param("periodStart") LocalDate periodStart);
+}
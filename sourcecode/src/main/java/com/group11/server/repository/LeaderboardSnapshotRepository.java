@@ -0,0 +1,32 @@
+package com.group11.server.repository;
+
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.model.LeaderboardSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface LeaderboardSnapshotRepository extends JpaRepository<LeaderboardSnapshot, LeaderboardSnapshot.Key> {
+
+    /**
+     * @param period Kind of period
+     * @return the snapshot of the latest closed period that was taken, if any
+     */
+    Optional<LeaderboardSnapshot> findFirstByPeriodOrderByPeriodStartDesc(LeaderboardPeriod period);
+
+    /**
+     * This method deletes the markers of the periods starting on or after a day.
+     * @param period is the kind of period.
+     * @param periodStart is the first day of the first deleted period.
+     * @return number of deleted markers
+     */
+    @Modifying
+    @Query("DELETE FROM LeaderboardSnapshot s WHERE s.period = :period AND s.periodStart >= :periodStart")
+    int deleteFrom(@Param("period") LeaderboardPeriod period, @Param("periodStart") LocalDate periodStart);
+}
@@ -0,0 +1,18 @@
+package com.group11.server.repository;
+
+import com.group11.server.model.Player;
+
+import java.util.Optional;
+
+public interface PlayerNaturalIdRepository {
+
+    /**
+     * This method overloads findByUsername function to return Optional<User>
+     * It is added to return a non null valid object as checker for database answer.
+     * Username is the natural id of Player, so lookups are served from the second-level cache when possible.
+     *
+     * @param username Name of the player which is wanted.
+     * @return an Optional object that may or not hold Player which is checkable
+     */
+    Optional<Player> findByUsername(String username);
+}
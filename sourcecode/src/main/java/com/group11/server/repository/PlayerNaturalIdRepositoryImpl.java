@@ -0,0 +1,30 @@
+package com.group11.server.repository;
+
+import com.group11.server.model.Player;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class PlayerNaturalIdRepositoryImpl implements PlayerNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * This method loads the player by natural id. Hibernate first resolves the username to an ID through
+     * the natural id cache and then loads the entity from the entity cache, hitting the database only on misses.
+     *
+     * @param username Name of the player which is wanted.
+     * @return an Optional object that may or not hold Player which is checkable
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Player> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Player.class)
+                .loadOptional(username);
+    }
+}
@@ -1,24 +1,60 @@
 package com.group11.server.repository;
+import com.group11.server.dao.PlayerDao;
 import com.group11.server.model.Player;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PlayerRepository extends JpaRepository<Player, Long> {
+public interface PlayerRepository extends JpaRepository<Player, Long>, PlayerNaturalIdRepository {
+
+    /**
+     * @param resetPasswordToken Unique 30 character long password reset token
+     * @return an Optional object that may or not hold Player which is checkable.
+     */
+    Optional<Player> findByResetPasswordToken(String resetPasswordToken);
 
     /**
-     * This method overloads findByUsername function to return Optional<User>
-     * It is added to return a non null valid object as checker for database answer.
+     * This method is a keyset paged query over the player directory.
+     * Only id and username are selected so no credentials are loaded.
      *
-     * @param username Name of the player which is wanted.
-     * @return an Optional object that may or not hold Player which is checkable
+     * @param afterId ID of the last player of the previous page, 0 for the first page
+     * @param pageable is the parameter for limiting page size, its offset is not used
+     * @return the list of players with greater id sorted by id in ascending manner
      */
-    Optional<Player> findByUsername(String username);
+    @Query("SELECT new com.group11.server.dao.PlayerDao(p.id, p.username) " +
+            "FROM Player p " +
+            "WHERE p.id > :afterId " +
+            "ORDER BY p.id")
+    List<PlayerDao> findDirectoryPage(@Param("afterId") Long afterId, Pageable pageable);
 
     /**
-     * @param resetPasswordToken Unique 30 character long password reset token
-     * @return an Optional object that may or not hold Player which is checkable.
+     * This method streams the whole player directory without holding it in memory.
+     * It must be consumed inside a transaction and closed afterwards.
+     *
+     * @return stream of all players sorted by id in ascending manner
      */
-    Optional<Player> findByResetPasswordToken(String resetPasswordToken);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.group11.server.dao.PlayerDao(p.id, p.username) " +
+            "FROM Player p " +
+            "ORDER BY p.id")
+    Stream<PlayerDao> streamDirectory();
+
+    /**
+     * This method looks up which of the given usernames belong to registered players, in one query.
+     *
+     * @param usernames Usernames to look up
+     * @return the usernames that exist
+     */
+    @Query("SELECT p.username FROM Player p WHERE p.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
 }
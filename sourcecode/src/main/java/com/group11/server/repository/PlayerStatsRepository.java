@@ -0,0 +1,48 @@
+package com.group11.server.repository;
+
+import com.group11.server.model.PlayerStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlayerStatsRepository extends JpaRepository<PlayerStats, String> {
+
+    /**
+     * This method reads the statistics of a player and locks them until the transaction ends,
+     * so concurrent games of the same player are applied one after another.
+     * @param username is the username of the player.
+     * @return the statistics of the player if the player has any
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PlayerStats s WHERE s.username = :username")
+    Optional<PlayerStats> findForUpdate(@Param("username") String username);
+
+    /**
+     * This method reads and locks the statistics of several players.
+     * @param usernames is the usernames of the players.
+     * @return the statistics of the players that have any
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PlayerStats s WHERE s.username IN :usernames")
+    List<PlayerStats> findAllForUpdate(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * This method creates empty statistics of the players that have none. Rows that exist already,
+     * also ones inserted by a concurrent transaction, are left as they are instead of failing the insert.
+     * @param usernames is the usernames of the players.
+     * @return number of created rows
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO player_stats (username, games_played, total_score, best_score, week_score, streak) "
+            + "SELECT p.username, 0, 0, 0, 0, 0 FROM player p WHERE p.username IN :usernames", nativeQuery = true)
+    int insertMissing(@Param("usernames") Collection<String> usernames);
+}
@@ -0,0 +1,113 @@
+package com.group11.server.repository;
+
+import com.group11.server.dao.GameDao;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.function.ToDoubleFunction;
+
+@Repository
+public class ReactiveLeaderboardRepository implements MeterBinder {
+
+    /**
+     * Connection pool of the non-blocking driver. It is deliberately not exposed as a ConnectionFactory bean,
+     * because Spring Boot skips the JDBC DataSource that JPA needs when such a bean exists.
+     */
+    private final ConnectionPool connectionPool;
+
+    public ReactiveLeaderboardRepository(@Value("${reactive.datasource.url}") String url,
+                                         @Value("${reactive.datasource.username}") String username,
+                                         @Value("${reactive.datasource.password}") String password,
+                                         @Value("${reactive.datasource.pool-max-size:10}") int poolMaxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolMaxSize)
+                .build());
+    }
+
+    /**
+     * This method registers gauges of acquired, idle and pending connections of the pool.
+     *
+     * @param meterRegistry Registry the gauges are added to
+     */
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        poolGauge(meterRegistry, "r2dbc.pool.acquired", PoolMetrics::acquiredSize);
+        poolGauge(meterRegistry, "r2dbc.pool.idle", PoolMetrics::idleSize);
+        poolGauge(meterRegistry, "r2dbc.pool.pending", PoolMetrics::pendingAcquireSize);
+        poolGauge(meterRegistry, "r2dbc.pool.max", PoolMetrics::getMaxAllocatedSize);
+    }
+
+    private void poolGauge(MeterRegistry meterRegistry, String name, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, connectionPool, pool -> pool.getMetrics().map(value::applyAsDouble).orElse(Double.NaN))
+                .tag("pool", "leaderboard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * This method closes pooled connections when the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    /**
+     * This method is a non-blocking query to get the players and their scores
+     * in the games that played in last 7 days.
+     *
+     * @param pageLimit is the maximum number of returned players.
+     * @return stream of players with their overall scores
+     */
+    public Flux<GameDao> findLeaderboardWeekly(int pageLimit) {
+        return query(GameRepository.LEADERBOARD_WEEKLY_QUERY, pageLimit);
+    }
+
+    /**
+     * This method is a non-blocking query to get the players and their scores
+     * in the games that played in last 30 days.
+     *
+     * @param pageLimit is the maximum number of returned players.
+     * @return stream of players with their overall scores
+     */
+    public Flux<GameDao> findLeaderboardMonthly(int pageLimit) {
+        return query(GameRepository.LEADERBOARD_MONTHLY_QUERY, pageLimit);
+    }
+
+    /**
+     * This method runs a leaderboard query on a pooled R2DBC connection and releases it
+     * when the result is consumed, cancelled or failed.
+     *
+     * @param sql Leaderboard query without limit
+     * @param pageLimit is the maximum number of returned players.
+     * @return stream of players with their overall scores
+     */
+    private Flux<GameDao> query(String sql, int pageLimit) {
+        return Flux.usingWhen(connectionPool.create(),
+                connection -> Flux.from(connection.createStatement(sql + " LIMIT ?")
+                                .bind(0, pageLimit)
+                                .execute())
+                        .flatMap(result -> result.map((row, rowMetadata) -> {
+                            GameDao gameDao = new GameDao();
+                            gameDao.setUsername(row.get(0, String.class));
+                            gameDao.setScore(row.get(1, BigDecimal.class).intValue());
+                            return gameDao;
+                        })),
+                Connection::close);
+    }
+}
@@ -0,0 +1,247 @@
+package com.group11.server.service;
+
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.Game;
+import com.group11.server.model.GameChange;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.repository.GameChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Database backed change log of games for running several instances behind a load balancer.
+ * Every saved game is also written to the game_change table in the same transaction, and every instance polls
+ * the table in ID order and publishes a GameRecordedEvent for the games saved by the other instances, so
+ * in-memory leaderboard state of all instances follows the same games within one poll interval.
+ * Does nothing unless cluster.enabled=true.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class GameChangeLog {
+
+    private final GameChangeRepository gameChangeRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean enabled;
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long retentionMinutes;
+
+    private final long gapTimeoutMillis;
+
+    /**
+     * ID of the newest change read so far
+     */
+    private long lastReadId;
+
+    /**
+     * IDs missing below the newest change read and when they were first noticed. A gap is either a transaction
+     * that has not committed yet or a rolled back insert, which is told apart by waiting for the gap timeout.
+     */
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    public GameChangeLog(GameChangeRepository gameChangeRepository,
+                         ApplicationEventPublisher applicationEventPublisher,
+                         @Value("${cluster.enabled:false}") boolean enabled,
+                         @Value("${cluster.node-id:}") String nodeId,
+                         @Value("${cluster.change-log.batch-size:500}") int batchSize,
+                         @Value("${cluster.change-log.gap-timeout-millis:10000}") long gapTimeoutMillis,
+                         @Value("${cluster.change-log.retention-minutes:60}") long retentionMinutes) {
+        this.gameChangeRepository = gameChangeRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * This method starts reading after the newest change. Changes missing below it are kept as gaps, so a game
+     * committed later by another instance is still published.
+     */
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            Position position = readPosition();
+            lastReadId = position.lastId;
+            long now = System.nanoTime();
+            position.missing.forEach(id -> gaps.put(id, now));
+            log.info("Tailing game change log as node {} after change {}", nodeId, lastReadId);
+        }
+    }
+
+    /**
+     * This method reads which changes are visible to the calling transaction. Components that load leaderboard
+     * state from the game table call it in the transaction of the load, with repeatable read isolation so that
+     * both see the same snapshot, and skip the published changes the position covers, since their games are
+     * loaded already. IDs missing below the newest change are transactions that had not committed yet, unless
+     * they are older than the gap timeout, which the poll gives up as well.
+     *
+     * @return Position of the snapshot, or null if the change log is disabled
+     */
+    public Position readPosition() {
+        if (!enabled) {
+            return null;
+        }
+        Long maxId = gameChangeRepository.findMaxId();
+        if (maxId == null) {
+            return new Position(0, Set.of());
+        }
+        Long settledId = gameChangeRepository.findMaxIdCreatedBefore(LocalDateTime.now().minus(gapTimeoutMillis, ChronoUnit.MILLIS));
+        List<Long> visibleIds = gameChangeRepository.findIdsAfter(settledId == null ? 0 : settledId);
+        long firstId = settledId != null ? settledId + 1
+                : visibleIds.stream().mapToLong(Long::longValue).min().orElse(maxId + 1);
+        Set<Long> visible = new HashSet<>(visibleIds);
+        Set<Long> missing = new HashSet<>();
+        for (long id = firstId; id <= maxId; id++) {
+            if (!visible.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return new Position(maxId, missing);
+    }
+
+    /**
+     * @return true if games are written to and read from the change log
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This method writes a saved game to the change log. It should be called in the transaction
+     * that saves the game, so the change is visible exactly when the game is.
+     *
+     * @param game Saved game
+     */
+    public void record(Game game) {
+        record(game, false);
+    }
+
+    /**
+     * This method writes a change of a game to the change log, in the transaction that changes the game.
+     *
+     * @param game      Changed game
+     * @param retracted true if the game is taken out of leaderboards, false if it is added
+     */
+    public void record(Game game, boolean retracted) {
+        if (enabled) {
+            gameChangeRepository.save(new GameChange(null, game.getId(), game.getUsername(), game.getScore(),
+                    game.getEndTime(), game.getSeason(), game.getMode(), retracted, nodeId, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * This method reads new changes and publishes the ones written by other instances. Gaps are looked up again
+     * until they are filled or older than the gap timeout, while reading goes on after the newest change, so
+     * a slow transaction never holds back the changes behind it.
+     */
+    @Scheduled(fixedDelayString = "${cluster.change-log.poll-millis:200}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!gaps.isEmpty()) {
+                List<Long> gapIds = gaps.keySet().stream().limit(batchSize).collect(Collectors.toList());
+                for (GameChange change : gameChangeRepository.findAllById(gapIds)) {
+                    gaps.remove(change.getId());
+                    publish(change);
+                }
+            }
+            List<GameChange> changes;
+            do {
+                changes = gameChangeRepository.findByIdGreaterThanOrderByIdAsc(lastReadId, PageRequest.of(0, batchSize));
+                for (GameChange change : changes) {
+                    addGaps(lastReadId, change.getId());
+                    publish(change);
+                    lastReadId = change.getId();
+                }
+            } while (changes.size() == batchSize);
+            long now = System.nanoTime();
+            gaps.values().removeIf(noticed -> now - noticed >= gapTimeoutNanos);
+        } catch (Exception e) {
+            log.warn("Could not read game change log after change {}", lastReadId, e);
+        }
+    }
+
+    /**
+     * This method notes the IDs skipped between two changes read one after the other. A jump of more than a
+     * batch is not a set of pending transactions but a jump of the ID sequence, which is not followed.
+     *
+     * @param fromId ID read before
+     * @param toId   ID read next
+     */
+    private void addGaps(long fromId, long toId) {
+        if (toId - fromId - 1 > batchSize) {
+            log.warn("Game change IDs jumped from {} to {}, not waiting for the IDs in between", fromId, toId);
+            return;
+        }
+        long now = System.nanoTime();
+        for (long id = fromId + 1; id < toId; id++) {
+            gaps.put(id, now);
+        }
+    }
+
+    private void publish(GameChange change) {
+        if (!nodeId.equals(change.getNode())) {
+            applicationEventPublisher.publishEvent(new GameRecordedEvent(change.getUsername(), change.getScore(),
+                    change.getEndTime(), LeaderboardKey.ofSaved(change.getSeason(), change.getMode()),
+                    Boolean.TRUE.equals(change.getRetracted()), change.getId()));
+        }
+    }
+
+    /**
+     * This method deletes changes older than the retention time. Every instance runs it, deleting is idempotent.
+     */
+    @Scheduled(fixedDelayString = "${cluster.change-log.purge-millis:600000}")
+    public void purge() {
+        if (enabled) {
+            int deleted = gameChangeRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(retentionMinutes));
+            if (deleted > 0) {
+                log.info("Purged {} game changes", deleted);
+            }
+        }
+    }
+
+    /**
+     * Changes visible to a transaction: every change up to the newest one except the missing ones
+     */
+    public static final class Position {
+        private final long lastId;
+        private final Set<Long> missing;
+
+        private Position(long lastId, Set<Long> missing) {
+            this.lastId = lastId;
+            this.missing = missing;
+        }
+
+        /**
+         * @param changeId ID of the change an event was read from, null for games saved by this instance
+         * @return true if the change was visible, so its game is part of what was loaded
+         */
+        public boolean covers(Long changeId) {
+            return changeId != null && changeId <= lastId && !missing.contains(changeId);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.group11.server.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.group11.server.dao.GameImportReportDao;
+import com.group11.server.model.Game;
+import com.group11.server.model.GameImportCheckpoint;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.repository.PlayerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports historical games from a CSV or NDJSON file, bypassing the game API.
+ * The file is streamed in chunks: usernames of a chunk are checked against the player table in one query and its
+ * games are inserted through a stateless Hibernate session with JDBC batching, so there is no persistence context
+ * growing with the file and no event, cache or leaderboard work per game. Every chunk commits together with the
+ * checkpoint of the file, keyed by its name and content hash, so an interrupted import started again with the same
+ * file continues after the last committed chunk. Records that cannot be parsed, have a negative score or name an
+ * unknown player are rejected and counted, the import goes on.
+ */
+@Slf4j
+@Component
+public class GameImporter {
+
+    private static final int MAX_LOGGED_REJECTIONS = 20;
+
+    /**
+     * Length of the file name kept in a checkpoint key, which leaves room for the hash in the key column
+     */
+    private static final int MAX_CHECKPOINT_NAME_LENGTH = 180;
+
+    private final SessionFactory sessionFactory;
+    private final PlayerRepository playerRepository;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public GameImporter(EntityManagerFactory entityManagerFactory,
+                        PlayerRepository playerRepository,
+                        ObjectMapper objectMapper,
+                        @Value("${game-import.chunk-size:5000}") int chunkSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.playerRepository = playerRepository;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * This method imports the games of a file. A file ending with .csv has a header record naming its columns
+     * username, score, endTime and optionally startTime, season and mode, and may quote fields as in RFC 4180;
+     * any other file has one JSON object with these fields per line.
+     *
+     * @param file File to import
+     * @return Number of imported and rejected lines, the import rate and the earliest end time of the imported games
+     * @throws Exception if the file cannot be read or a chunk cannot be committed
+     */
+    public GameImportReportDao importGames(Path file) throws Exception {
+        String source = file.getFileName().toString();
+        boolean csv = source.toLowerCase().endsWith(".csv");
+        long startNanos = System.nanoTime();
+        String checkpointKey = checkpointKey(file);
+        GameImportCheckpoint checkpoint;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            checkpoint = (GameImportCheckpoint) session.get(GameImportCheckpoint.class, checkpointKey);
+        }
+        boolean checkpointExists = checkpoint != null;
+        if (!checkpointExists) {
+            checkpoint = new GameImportCheckpoint(checkpointKey, 0, 0, 0, null, null);
+        } else {
+            log.info("Resuming import of {} after record {}", source, checkpoint.getLines());
+        }
+        long resumedLines = checkpoint.getLines();
+        long importedBefore = checkpoint.getImported();
+        long rejectedBefore = checkpoint.getRejected();
+
+        try (Records records = csv ? new CsvRecords(file) : new JsonRecords(file)) {
+            long lineNumber = records.headerRecords();
+            while (lineNumber < resumedLines && records.next()) {
+                lineNumber++;
+            }
+            List<Game> games = new ArrayList<>(chunkSize);
+            List<Long> gameLines = new ArrayList<>(chunkSize);
+            while (records.next()) {
+                lineNumber++;
+                if (records.isBlank()) continue;
+                try {
+                    games.add(records.game());
+                    gameLines.add(lineNumber);
+                } catch (Exception e) {
+                    reject(checkpoint, source, lineNumber, e.getMessage());
+                }
+                if (lineNumber - checkpoint.getLines() >= chunkSize) {
+                    commitChunk(checkpoint, source, games, gameLines, lineNumber, checkpointExists);
+                    checkpointExists = true;
+                    logProgress(source, checkpoint.getImported() - importedBefore, startNanos);
+                }
+            }
+            if (lineNumber > checkpoint.getLines()) {
+                commitChunk(checkpoint, source, games, gameLines, lineNumber, checkpointExists);
+            }
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        long imported = checkpoint.getImported() - importedBefore;
+        GameImportReportDao report = new GameImportReportDao(source, imported, checkpoint.getRejected() - rejectedBefore,
+                resumedLines, seconds, seconds > 0 ? imported / seconds : 0, checkpoint.getEarliestEndTime());
+        log.info("Imported {} games from {} in {} s ({} rows/s), rejected {} records",
+                report.getImported(), source, String.format("%.1f", seconds),
+                String.format("%.0f", report.getRowsPerSecond()), report.getRejected());
+        return report;
+    }
+
+    /**
+     * This method rejects the games of unknown players and inserts the rest of a chunk in one transaction
+     * with the checkpoint, then clears the chunk.
+     */
+    private void commitChunk(GameImportCheckpoint checkpoint, String source, List<Game> games, List<Long> gameLines,
+                             long lineNumber, boolean checkpointExists) {
+        Set<String> usernames = new HashSet<>();
+        games.forEach(game -> usernames.add(game.getUsername()));
+        Set<String> existing = usernames.isEmpty()
+                ? Set.of() : new HashSet<>(playerRepository.findExistingUsernames(usernames));
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(chunkSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                long imported = 0;
+                for (int i = 0; i < games.size(); i++) {
+                    Game game = games.get(i);
+                    if (!existing.contains(game.getUsername())) {
+                        reject(checkpoint, source, gameLines.get(i), "Unknown player " + game.getUsername());
+                        continue;
+                    }
+                    session.insert(game);
+                    imported++;
+                    if (checkpoint.getEarliestEndTime() == null || game.getEndTime().isBefore(checkpoint.getEarliestEndTime())) {
+                        checkpoint.setEarliestEndTime(game.getEndTime());
+                    }
+                }
+                checkpoint.setLines(lineNumber);
+                checkpoint.setImported(checkpoint.getImported() + imported);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                if (checkpointExists) {
+                    session.update(checkpoint);
+                } else {
+                    session.insert(checkpoint);
+                }
+                transaction.commit();
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
+        games.clear();
+        gameLines.clear();
+    }
+
+    private void reject(GameImportCheckpoint checkpoint, String source, long lineNumber, String reason) {
+        checkpoint.setRejected(checkpoint.getRejected() + 1);
+        if (checkpoint.getRejected() <= MAX_LOGGED_REJECTIONS) {
+            log.warn("Rejected record {} of {}: {}", lineNumber, source, reason);
+        }
+    }
+
+    private void logProgress(String source, long imported, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        log.info("Imported {} games from {} ({} rows/s)", imported, source, String.format("%.0f", imported / seconds));
+    }
+
+    /**
+     * This method names the checkpoint of a file after its name and a SHA-256 hash of its content, so a changed
+     * or different file with the same name is imported from its start, while a copy of the same file resumes.
+     *
+     * @param file File to import
+     * @return Key of the checkpoint of the file
+     * @throws Exception if the file cannot be read
+     */
+    static String checkpointKey(Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = String.format("%064x", new BigInteger(1, digest.digest()));
+        String name = file.getFileName().toString();
+        return name.substring(0, Math.min(name.length(), MAX_CHECKPOINT_NAME_LENGTH)) + "@" + hash;
+    }
+
+    /**
+     * Records of an import file, each holding one game
+     */
+    private interface Records extends Closeable {
+
+        /**
+         * @return Number of records before the games, which count as committed records of a checkpoint
+         */
+        long headerRecords();
+
+        /**
+         * @return false at the end of the file
+         */
+        boolean next() throws IOException;
+
+        /**
+         * @return true if the current record is empty and is skipped
+         */
+        boolean isBlank();
+
+        /**
+         * @return Game of the current record
+         * @throws Exception if the record is not a valid game
+         */
+        Game game() throws Exception;
+    }
+
+    /**
+     * Records of a CSV file with a header. Fields may be quoted, so they can hold commas, quotes and line breaks.
+     */
+    private static final class CsvRecords implements Records {
+        private final MappingIterator<List<String>> iterator;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> values;
+
+        private CsvRecords(Path file) throws Exception {
+            CsvMapper csvMapper = new CsvMapper();
+            iterator = csvMapper.readerFor(new TypeReference<List<String>>() {
+                    })
+                    .with(CsvSchema.emptySchema())
+                    .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                    .with(CsvParser.Feature.SKIP_EMPTY_LINES)
+                    .readValues(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+            try {
+                if (!iterator.hasNextValue()) throw new Exception("File " + file.getFileName() + " is empty.");
+                List<String> names = iterator.nextValue();
+                for (int i = 0; i < names.size(); i++) {
+                    columns.put(names.get(i).trim(), i);
+                }
+                for (String required : Arrays.asList("username", "score", "endTime")) {
+                    if (!columns.containsKey(required)) throw new Exception("CSV header has no " + required + " column.");
+                }
+            } catch (Exception e) {
+                iterator.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public long headerRecords() {
+            return 1;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (!iterator.hasNextValue()) return false;
+            values = iterator.nextValue();
+            return true;
+        }
+
+        @Override
+        public boolean isBlank() {
+            return values.stream().allMatch(String::isBlank);
+        }
+
+        @Override
+        public Game game() throws Exception {
+            return newGame(value("username"), value("score"), value("endTime"),
+                    value("startTime"), value("season"), value("mode"));
+        }
+
+        private String value(String name) {
+            Integer column = columns.get(name);
+            if (column == null || column >= values.size()) return null;
+            String value = values.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+
+    /**
+     * Records of an NDJSON file, one JSON object per line
+     */
+    private final class JsonRecords implements Records {
+        private final BufferedReader reader;
+        private String line;
+
+        private JsonRecords(Path file) throws IOException {
+            reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long headerRecords() {
+            return 0;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+
+        @Override
+        public boolean isBlank() {
+            return line.isBlank();
+        }
+
+        @Override
+        public Game game() throws Exception {
+            JsonNode node = objectMapper.readTree(line);
+            return newGame(node.path("username").asText(null),
+                    node.path("score").asText(null),
+                    node.path("endTime").asText(null),
+                    node.path("startTime").asText(null),
+                    node.path("season").asText(null),
+                    node.path("mode").asText(null));
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static Game newGame(String username, String score, String endTime, String startTime,
+                                String season, String mode) throws Exception {
+        if (username == null || score == null || endTime == null) {
+            throw new Exception("username, score and endTime are required");
+        }
+        Game game = new Game();
+        game.setUsername(username);
+        game.setScore(Integer.parseInt(score));
+        if (game.getScore() < 0) throw new Exception("Score cannot be negative");
+        game.setActivity(false);
+        game.setEndTime(LocalDate.parse(endTime));
+        game.setStartTime(startTime == null ? null : LocalDateTime.parse(startTime));
+        LeaderboardKey leaderboardKey = LeaderboardKey.of(season, mode);
+        if (leaderboardKey != null) {
+            game.setSeason(leaderboardKey.getSeason());
+            game.setMode(leaderboardKey.getMode());
+        }
+        return game;
+    }
+}
@@ -1,12 +1,33 @@
 package com.group11.server.service;
 
 import com.group11.server.dao.GameDao;
+import com.group11.server.dao.LeaderboardPayload;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.dao.ScoreHistogramDao;
+import com.group11.server.dao.ScorePercentileDao;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
 import org.springframework.data.util.Pair;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface GameService {
-    void addGame(Long playerId, Integer score) throws Exception;
+    Long addGame(Long playerId, Integer score) throws Exception;
+    Long addGame(Long playerId, Integer score, String idempotencyKey) throws Exception;
+    Long addGame(Long playerId, Integer score, String idempotencyKey, LeaderboardKey leaderboardKey) throws Exception;
+    boolean retractGame(Long gameId) throws Exception;
+    void addFinishedGame(String username, Integer score, LocalDateTime startTime, LeaderboardKey leaderboardKey) throws Exception;
     List<GameDao> getWeeklyGameRecordList(int pageLimit);
     List<GameDao> getMonthlyGameRecordList(int pageLimit);
+    List<GameDao> getBoardGameRecordList(LeaderboardKey leaderboardKey, LeaderboardPeriod period, int pageLimit) throws Exception;
+    List<RankedGameDao> getGameRecordsAround(LeaderboardKey leaderboardKey, LeaderboardPeriod period, String username, int radius) throws Exception;
+    List<GameDao> getRangeGameRecordList(LeaderboardKey leaderboardKey, LocalDate from, LocalDate to, int pageLimit) throws Exception;
+    Flux<GameDao> getWeeklyGameRecordFlux(int pageLimit) throws Exception;
+    Flux<GameDao> getMonthlyGameRecordFlux(int pageLimit) throws Exception;
+    ScorePercentileDao getScorePercentile(Integer score, LeaderboardPeriod period) throws Exception;
+    ScoreHistogramDao getScoreHistogram(LeaderboardPeriod period, int buckets) throws Exception;
+    LeaderboardPayload getLeaderboardPayload(LeaderboardPeriod period, int pageLimit) throws Exception;
 }
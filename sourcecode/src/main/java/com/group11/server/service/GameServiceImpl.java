@@ -1,21 +1,47 @@
 package com.group11.server.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group11.server.CacheConfig;
 import com.group11.server.dao.GameDao;
+import com.group11.server.dao.LeaderboardPayload;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.dao.ScoreHistogramDao;
+import com.group11.server.dao.ScorePercentileDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.event.GameSubmittedEvent;
 import com.group11.server.model.Game;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
 import com.group11.server.model.Player;
 import com.group11.server.repository.GameRepository;
 import com.group11.server.repository.PlayerRepository;
+import com.group11.server.repository.ReactiveLeaderboardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.math.BigDecimal.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 @AllArgsConstructor
@@ -23,6 +49,30 @@ public class GameServiceImpl implements GameService {
 
     private final GameRepository gameRepository;
     private final PlayerRepository playerRepository;
+    private final ReactiveLeaderboardRepository reactiveLeaderboardRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final LeaderboardVersion leaderboardVersion;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final GameChangeLog gameChangeLog;
+    private final PlayerStatsService playerStatsService;
+    private final LeaderboardRangeIndex leaderboardRangeIndex;
+    private final ScoreDistribution scoreDistribution;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager hibernateCacheManager;
+
+    /**
+     * Upper bound of the page limit whose encoded payloads are kept, which also bounds the number of kept payloads
+     */
+    public static final int MAX_PRESERIALIZED_PAGE_LIMIT = 100;
+
+    /**
+     * Upper bound of the number of players listed on each side of a player
+     */
+    public static final int MAX_AROUND_RADIUS = 50;
+
+    private final Map<String, LeaderboardPayload> leaderboardPayloads = new ConcurrentHashMap<>();
+    private final Map<String, Object> leaderboardPayloadLocks = new ConcurrentHashMap<>();
 
     /**
      * This method takes ID of player and score of player
@@ -30,23 +80,172 @@ public class GameServiceImpl implements GameService {
      *
      * @param playerId ID of the player
      * @param score  Score of the player
+     * @return ID of the saved game
      * @throws Exception if Player does not exist
      */
     @Override
-    public void addGame(Long playerId, Integer score) throws  Exception {
+    public Long addGame(Long playerId, Integer score) throws Exception {
+        return addGame(playerId, score, null);
+    }
+
+    /**
+     * This method takes ID of player, score of player and an optional idempotency key
+     * as parameter and saves a game without season and mode.
+     *
+     * @param playerId       ID of the player
+     * @param score          Score of the player
+     * @param idempotencyKey Key that is the same for retries of a submission, may be null
+     * @return ID of the saved game
+     * @throws Exception if Player does not exist, score is negative or the key is too long
+     */
+    @Override
+    public Long addGame(Long playerId, Integer score, String idempotencyKey) throws Exception {
+        return addGame(playerId, score, idempotencyKey, null);
+    }
+
+    /**
+     * This method takes ID of player, score of player, an optional idempotency key and an optional season and mode
+     * as parameter and saves it. Statistics of the player are updated in the same transaction.
+     * In cluster mode the game is also written to the change log in the same transaction.
+     * Listeners of in-memory leaderboard state are notified after the transaction commits.
+     * A submission whose key the player already used returns the ID of the game saved first without saving again.
+     * Recently used keys are answered from a bounded in-memory window, older ones are caught by the unique
+     * constraint of username and key.
+     *
+     * @param playerId       ID of the player
+     * @param score          Score of the player
+     * @param idempotencyKey Key that is the same for retries of a submission, may be null
+     * @param leaderboardKey Season and mode of the game, null if it has neither
+     * @return ID of the saved game
+     * @throws Exception if Player does not exist, score is negative, the key is too long or season or mode is not configured
+     */
+    @Override
+    public Long addGame(Long playerId, Integer score, String idempotencyKey, LeaderboardKey leaderboardKey) throws Exception {
         Optional<Player> optionalPlayer = playerRepository.findById(playerId);
         if (optionalPlayer.isEmpty()) throw new Exception("Player is not found.");
         Player player = optionalPlayer.get();
         if (score < 0) throw new Exception("Score cannot be negative");
+        if (idempotencyKey != null && idempotencyKey.length() > Game.IDEMPOTENCY_KEY_MAX_LENGTH)
+            throw new Exception("Idempotency key cannot be longer than " + Game.IDEMPOTENCY_KEY_MAX_LENGTH + " characters.");
+        leaderboardRangeIndex.checkKey(leaderboardKey);
+
+        Cache<String, Long> savedGameIds = hibernateCacheManager.getCache(CacheConfig.GAME_IDEMPOTENCY_REGION, String.class, Long.class);
+        String cacheKey = player.getUsername() + ":" + idempotencyKey;
+        if (idempotencyKey != null) {
+            Long savedGameId = savedGameIds.get(cacheKey);
+            if (savedGameId != null) return savedGameId;
+        }
+
         Game game = new Game();
         game.setUsername(player.getUsername());
         game.setScore(score);
         game.setEndTime(LocalDate.now());
-        gameRepository.save(game);
+        game.setIdempotencyKey(idempotencyKey);
+        setLeaderboardKey(game, leaderboardKey);
+        Long gameId;
+        try {
+            gameId = transactionTemplate.execute(status -> saveGame(game));
+        } catch (DataIntegrityViolationException e) {
+            // A retry that raced the first submission or arrived after its key left the in-memory window
+            if (idempotencyKey == null) throw e;
+            gameId = gameRepository.findByUsernameAndIdempotencyKey(player.getUsername(), idempotencyKey)
+                    .orElseThrow(() -> e).getId();
+        }
+        if (idempotencyKey != null) {
+            savedGameIds.put(cacheKey, gameId);
+        }
+        return gameId;
+    }
+
+    /**
+     * This method saves a game that was played through a server side session.
+     *
+     * @param username  Username of the player
+     * @param score     Final score of the game
+     * @param startTime Time the session started
+     * @param leaderboardKey Season and mode of the game, null if it has neither
+     * @throws Exception if score is negative or season or mode is not configured
+     */
+    @Override
+    @Transactional
+    public void addFinishedGame(String username, Integer score, LocalDateTime startTime, LeaderboardKey leaderboardKey) throws Exception {
+        if (score < 0) throw new Exception("Score cannot be negative");
+        leaderboardRangeIndex.checkKey(leaderboardKey);
+        Game game = new Game();
+        game.setUsername(username);
+        game.setScore(score);
+        game.setActivity(false);
+        game.setStartTime(startTime);
+        game.setEndTime(LocalDate.now());
+        setLeaderboardKey(game, leaderboardKey);
+        saveGame(game);
+    }
+
+    private static void setLeaderboardKey(Game game, LeaderboardKey leaderboardKey) {
+        if (leaderboardKey != null) {
+            game.setSeason(leaderboardKey.getSeason());
+            game.setMode(leaderboardKey.getMode());
+        }
+    }
+
+    private Long saveGame(Game game) {
+        gameRepository.saveAndFlush(game);
+        playerStatsService.recordGame(game);
+        gameChangeLog.record(game);
+        publishAfterCommit(new GameRecordedEvent(game.getUsername(), game.getScore(), game.getEndTime(),
+                LeaderboardKey.ofSaved(game.getSeason(), game.getMode())));
+        publishAfterCommit(new GameSubmittedEvent(game.getId(), game.getUsername(), game.getScore()));
+        return game.getId();
+    }
+
+    /**
+     * This method flags a game as suspicious, which leaves it out of leaderboards and player statistics.
+     * The game is retracted from in-memory leaderboard state, and in cluster mode from other instances,
+     * with a change marked as retracted.
+     *
+     * @param gameId ID of the game
+     * @return false if the game was flagged already
+     * @throws Exception if game does not exist
+     */
+    @Override
+    @Transactional
+    public boolean retractGame(Long gameId) throws Exception {
+        // Locking makes concurrent validations of the same game retract it only once
+        Optional<Game> optionalGame = gameRepository.findForUpdate(gameId);
+        if (optionalGame.isEmpty()) throw new Exception("Game is not found.");
+        Game game = optionalGame.get();
+        if (Boolean.TRUE.equals(game.getSuspicious())) return false;
+        game.setSuspicious(true);
+        gameRepository.saveAndFlush(game);
+        playerStatsService.retractGame(game);
+        gameChangeLog.record(game, true);
+        publishAfterCommit(new GameRecordedEvent(game.getUsername(), game.getScore(), game.getEndTime(),
+                LeaderboardKey.ofSaved(game.getSeason(), game.getMode()), true, null));
+        return true;
+    }
+
+    /**
+     * This method publishes an event once the current transaction commits, so listeners never see a game
+     * that readers of the database cannot see yet, and never see a game that is rolled back.
+     *
+     * @param event Event to publish
+     */
+    private void publishAfterCommit(Object event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applicationEventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applicationEventPublisher.publishEvent(event);
+            }
+        });
     }
 
     /**
      * This method gets weekly games from the database ordered in decreasing order by Score with size of pageLimit.
+     * Query time is recorded in the leaderboard.query timer.
      *
      * @param pageLimit Size of the returning list. Should be positive int
      * @return A list of games
@@ -54,11 +253,13 @@ public class GameServiceImpl implements GameService {
     @Override
     public List<GameDao> getWeeklyGameRecordList(int pageLimit) {
 
-        return convertToUsernameScorePairList(gameRepository.findLeaderboardWeekly(PageRequest.of(0, pageLimit)));
+        return meterRegistry.timer("leaderboard.query", "period", "weekly").record(() ->
+                convertToUsernameScorePairList(gameRepository.findLeaderboardWeekly(PageRequest.of(0, pageLimit))));
     }
 
     /**
      * This method gets monthly games from the database ordered in decreasing order by Score with size of pageLimit.
+     * Query time is recorded in the leaderboard.query timer.
      *
      * @param pageLimit Size of the returning list. Should be positive int
      * @return A list of games
@@ -66,7 +267,165 @@ public class GameServiceImpl implements GameService {
     @Override
     public List<GameDao> getMonthlyGameRecordList(int pageLimit) {
 
-        return convertToUsernameScorePairList(gameRepository.findLeaderboardMonthly(PageRequest.of(0, pageLimit)));
+        return meterRegistry.timer("leaderboard.query", "period", "monthly").record(() ->
+                convertToUsernameScorePairList(gameRepository.findLeaderboardMonthly(PageRequest.of(0, pageLimit))));
+    }
+
+    /**
+     * This method gets the players of a season or mode with the highest totals in a rolling window.
+     * It is answered from the in-memory ranking of the board in O(log n + pageLimit) rather than the database.
+     * Query time is recorded in the leaderboard.query timer.
+     *
+     * @param leaderboardKey Season and mode of the board
+     * @param period         Time window of the ranking
+     * @param pageLimit      Size of the returning list. Should be positive int
+     * @return A list of players with their total scores in the window
+     * @throws Exception if page limit is not positive
+     */
+    @Override
+    public List<GameDao> getBoardGameRecordList(LeaderboardKey leaderboardKey, LeaderboardPeriod period, int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        return meterRegistry.timer("leaderboard.query", "period", period.name().toLowerCase()).record(() ->
+                leaderboardRangeIndex.getTop(leaderboardKey, period, pageLimit));
+    }
+
+    /**
+     * This method gets the players ranked right above and below a player in a rolling window.
+     * It is answered from the in-memory ranking in O(log n + radius) rather than the database.
+     *
+     * @param leaderboardKey Season and mode of the board, null for the global leaderboard
+     * @param period   Time window of the ranking
+     * @param username Username of the player
+     * @param radius   Number of players listed above and below. Should not be negative, at most MAX_AROUND_RADIUS
+     * @return Ranked players ordered by rank, empty if the player has no games in the window
+     * @throws Exception if radius is negative
+     */
+    @Override
+    public List<RankedGameDao> getGameRecordsAround(LeaderboardKey leaderboardKey, LeaderboardPeriod period, String username, int radius) throws Exception {
+        if (radius < 0) throw new Exception("Radius cannot be negative.");
+        return meterRegistry.timer("leaderboard.query", "period", period.name().toLowerCase() + "_around").record(() ->
+                leaderboardRangeIndex.getAround(leaderboardKey, period, username, Math.min(radius, MAX_AROUND_RADIUS)));
+    }
+
+    /**
+     * This method gets total scores of the games that ended between two days ordered in decreasing order,
+     * with size of pageLimit. It is answered from the in-memory range index rather than the database.
+     * Query time is recorded in the leaderboard.query timer.
+     *
+     * @param leaderboardKey Season and mode of the board, null for the global leaderboard
+     * @param from      First day of the range, inclusive, or null for no lower bound
+     * @param to        Last day of the range, inclusive, or null for no upper bound
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return A list of players with their total scores in the range
+     * @throws Exception if page limit is not positive or the range is empty
+     */
+    @Override
+    public List<GameDao> getRangeGameRecordList(LeaderboardKey leaderboardKey, LocalDate from, LocalDate to, int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        if (from != null && to != null && from.isAfter(to)) throw new Exception("Start date cannot be after end date.");
+        String period = from == null && to == null ? "all_time" : "range";
+        return meterRegistry.timer("leaderboard.query", "period", period).record(() ->
+                leaderboardRangeIndex.getLeaderboard(leaderboardKey, from, to, pageLimit));
+    }
+
+    /**
+     * This method finds the percentile of a score among the games of a time window.
+     * It is answered from in-memory histograms, within the error documented on ScoreDistribution.
+     *
+     * @param score  Score to look up
+     * @param period Time window, null for all time
+     * @return Percentage of games in the window with the same or a lower score
+     * @throws Exception if score is negative
+     */
+    @Override
+    public ScorePercentileDao getScorePercentile(Integer score, LeaderboardPeriod period) throws Exception {
+        if (score < 0) throw new Exception("Score cannot be negative");
+        return scoreDistribution.getPercentile(score, period);
+    }
+
+    /**
+     * This method gets the number of games of a time window in equal width score buckets.
+     *
+     * @param period  Time window, null for all time
+     * @param buckets Number of buckets. Should be positive int, at most ScoreDistribution.MAX_BUCKETS
+     * @return Score histogram of the window
+     * @throws Exception if number of buckets is not positive
+     */
+    @Override
+    public ScoreHistogramDao getScoreHistogram(LeaderboardPeriod period, int buckets) throws Exception {
+        if (buckets <= 0) throw new Exception("Number of buckets should be positive.");
+        return scoreDistribution.getHistogram(period, Math.min(buckets, ScoreDistribution.MAX_BUCKETS));
+    }
+
+    /**
+     * This method gets a leaderboard page encoded as JSON and gzip compressed JSON.
+     * Encoded pages are kept until the leaderboard version changes, so concurrent requests for an unchanged
+     * leaderboard share the same bytes and only one of them queries and encodes it after a change.
+     *
+     * @param period    Time window of the leaderboard
+     * @param pageLimit Size of the encoded list. Should be positive int
+     * @return Encoded leaderboard page
+     * @throws Exception if the page cannot be encoded
+     */
+    @Override
+    public LeaderboardPayload getLeaderboardPayload(LeaderboardPeriod period, int pageLimit) throws Exception {
+        String key = period + ":" + pageLimit;
+        LeaderboardPayload payload = leaderboardPayloads.get(key);
+        if (payload != null && payload.getETag().equals(leaderboardVersion.getETag(period, pageLimit))) {
+            return payload;
+        }
+        if (pageLimit > MAX_PRESERIALIZED_PAGE_LIMIT) {
+            return encodeLeaderboardPayload(period, pageLimit);
+        }
+
+        synchronized (leaderboardPayloadLocks.computeIfAbsent(key, k -> new Object())) {
+            payload = leaderboardPayloads.get(key);
+            if (payload == null || !payload.getETag().equals(leaderboardVersion.getETag(period, pageLimit))) {
+                payload = encodeLeaderboardPayload(period, pageLimit);
+                leaderboardPayloads.put(key, payload);
+            }
+            return payload;
+        }
+    }
+
+    private LeaderboardPayload encodeLeaderboardPayload(LeaderboardPeriod period, int pageLimit) throws Exception {
+        // Tag is read before loading, so a game saved meanwhile makes the tag stale rather than the payload
+        String eTag = leaderboardVersion.getETag(period, pageLimit);
+        List<GameDao> gameDaoList = period == LeaderboardPeriod.WEEKLY
+                ? getWeeklyGameRecordList(pageLimit)
+                : getMonthlyGameRecordList(pageLimit);
+        byte[] json = objectMapper.writeValueAsBytes(gameDaoList);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzip)) {
+            gzipOutputStream.write(json);
+        }
+        return new LeaderboardPayload(eTag, json, gzip.toByteArray());
+    }
+
+    /**
+     * This method gets weekly games without blocking the calling thread while the database answers.
+     *
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return A stream of players with their overall scores
+     * @throws Exception if page limit is not positive
+     */
+    @Override
+    public Flux<GameDao> getWeeklyGameRecordFlux(int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        return reactiveLeaderboardRepository.findLeaderboardWeekly(pageLimit);
+    }
+
+    /**
+     * This method gets monthly games without blocking the calling thread while the database answers.
+     *
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return A stream of players with their overall scores
+     * @throws Exception if page limit is not positive
+     */
+    @Override
+    public Flux<GameDao> getMonthlyGameRecordFlux(int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        return reactiveLeaderboardRepository.findLeaderboardMonthly(pageLimit);
     }
 
     /**
@@ -76,7 +435,7 @@ public class GameServiceImpl implements GameService {
      * @param queryResultList A list of objects that holds games
      * @return A list of username score pairs
      */
-    private List<GameDao> convertToUsernameScorePairList(List<Object[]> queryResultList) {
+    static List<GameDao> convertToUsernameScorePairList(List<Object[]> queryResultList) {
         List<GameDao> playerScoreList = new ArrayList<>();
 
         for (Object[] record : queryResultList) {
@@ -0,0 +1,11 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameSessionDao;
+import com.group11.server.model.LeaderboardKey;
+
+public interface GameSessionService {
+    GameSessionDao startSession(Long playerId, LeaderboardKey leaderboardKey) throws Exception;
+    void heartbeat(String sessionId, Integer score) throws Exception;
+    void finishSession(String sessionId, Integer score) throws Exception;
+    int getActiveSessionCount();
+}
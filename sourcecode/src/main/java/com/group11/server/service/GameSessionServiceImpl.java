@@ -0,0 +1,166 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameSessionDao;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of games in progress. Sessions live only in memory until they finish, so starting a game and
+ * heartbeats never write to the database, and the number of active games is read without a query.
+ * Sessions that miss heartbeats for longer than the timeout are swept and never saved.
+ * Sessions belong to the instance that started them, so with several instances clients have to be routed
+ * to the same instance for the whole session.
+ */
+@Slf4j
+@Lazy(false)
+@Service
+public class GameSessionServiceImpl implements GameSessionService {
+
+    private final GameService gameService;
+    private final PlayerRepository playerRepository;
+    private final LeaderboardRangeIndex leaderboardRangeIndex;
+    private final long timeoutNanos;
+    private final int maxActiveSessions;
+
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+
+    public GameSessionServiceImpl(GameService gameService,
+                                  PlayerRepository playerRepository,
+                                  LeaderboardRangeIndex leaderboardRangeIndex,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${game-session.timeout-seconds:60}") long timeoutSeconds,
+                                  @Value("${game-session.max-active:100000}") int maxActiveSessions) {
+        this.gameService = gameService;
+        this.playerRepository = playerRepository;
+        this.leaderboardRangeIndex = leaderboardRangeIndex;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        this.maxActiveSessions = maxActiveSessions;
+        Gauge.builder("game.sessions.active", sessions, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * This method starts a game session for a player.
+     *
+     * @param playerId       ID of the player
+     * @param leaderboardKey Season and mode the game is played in, null if it has neither
+     * @return The started session
+     * @throws Exception if player does not exist, season or mode is not configured or too many games are active
+     */
+    @Override
+    public GameSessionDao startSession(Long playerId, LeaderboardKey leaderboardKey) throws Exception {
+        Optional<Player> optionalPlayer = playerRepository.findById(playerId);
+        if (optionalPlayer.isEmpty()) throw new Exception("Player is not found.");
+        leaderboardRangeIndex.checkKey(leaderboardKey);
+        if (sessions.size() >= maxActiveSessions) throw new Exception("Too many active games, try again later.");
+
+        GameSession session = new GameSession(optionalPlayer.get().getUsername(), leaderboardKey);
+        sessions.put(session.sessionId, session);
+        return session.toDao();
+    }
+
+    /**
+     * This method keeps a session alive and records the current score of the game.
+     *
+     * @param sessionId ID of the session
+     * @param score     Current score, or null to only keep the session alive
+     * @throws Exception if session does not exist or has expired
+     */
+    @Override
+    public void heartbeat(String sessionId, Integer score) throws Exception {
+        GameSession session = sessions.get(sessionId);
+        if (session == null || isExpired(session, System.nanoTime()))
+            throw new Exception("Game session is not found or has expired.");
+        if (score != null) {
+            if (score < 0) throw new Exception("Score cannot be negative");
+            session.score = score;
+        }
+        session.lastHeartbeatNanos = System.nanoTime();
+    }
+
+    /**
+     * This method ends a session and saves its game. A session that missed heartbeats for longer than the
+     * timeout cannot be finished even before it is swept. If the game cannot be saved the session is kept,
+     * so the client can finish it again.
+     *
+     * @param sessionId ID of the session
+     * @param score     Final score, or null to use the last reported score
+     * @throws Exception if session does not exist, has expired or score is negative
+     */
+    @Override
+    public void finishSession(String sessionId, Integer score) throws Exception {
+        if (score != null && score < 0) throw new Exception("Score cannot be negative");
+        // Removing first makes finishing idempotent under concurrent requests for the same session
+        GameSession session = sessions.remove(sessionId);
+        if (session == null || isExpired(session, System.nanoTime()))
+            throw new Exception("Game session is not found or has expired.");
+        try {
+            gameService.addFinishedGame(session.username, score != null ? score : session.score, session.startTime,
+                    session.leaderboardKey);
+        } catch (Exception e) {
+            sessions.putIfAbsent(sessionId, session);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of games in progress on this instance
+     */
+    @Override
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * This method drops sessions whose client stopped sending heartbeats.
+     */
+    @Scheduled(fixedDelayString = "${game-session.sweep-millis:5000}")
+    public void sweepExpiredSessions() {
+        long now = System.nanoTime();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> isExpired(session, now));
+        int expired = before - sessions.size();
+        if (expired > 0) {
+            log.debug("Expired {} game sessions", expired);
+        }
+    }
+
+    private boolean isExpired(GameSession session, long now) {
+        return now - session.lastHeartbeatNanos > timeoutNanos;
+    }
+
+    /**
+     * Game in progress. Heartbeats of a session may run on different request threads, hence volatile fields.
+     */
+    private static class GameSession {
+        private final String sessionId = UUID.randomUUID().toString();
+        private final String username;
+        private final LeaderboardKey leaderboardKey;
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private volatile int score;
+        private volatile long lastHeartbeatNanos = System.nanoTime();
+
+        private GameSession(String username, LeaderboardKey leaderboardKey) {
+            this.username = username;
+            this.leaderboardKey = leaderboardKey;
+        }
+
+        private GameSessionDao toDao() {
+            return new GameSessionDao(sessionId, username, score, startTime);
+        }
+    }
+}
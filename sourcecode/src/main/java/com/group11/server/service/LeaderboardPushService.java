@@ -0,0 +1,8 @@
+package com.group11.server.service;
+
+import com.group11.server.model.LeaderboardPeriod;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface LeaderboardPushService {
+    SseEmitter subscribe(LeaderboardPeriod period, int pageLimit) throws Exception;
+}
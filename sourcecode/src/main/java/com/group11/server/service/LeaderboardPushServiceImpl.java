@@ -0,0 +1,365 @@
+package com.group11.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group11.server.dao.GameDao;
+import com.group11.server.dao.LeaderboardDeltaDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardPeriod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Pushes leaderboard changes to Server-Sent Events subscribers.
+ * Subscribers of the same period and page limit share one topic. New games only mark the leaderboards dirty,
+ * and on the next tick every topic is recomputed once, diffed against its previous ranking and the resulting
+ * delta is serialized once and queued for all of its subscribers.
+ * A burst of games within a tick therefore costs one query and one frame per topic, independent of the
+ * number of games and subscribers.
+ * Every subscriber has its own queue of events, written by at most one task of a small fan-out pool at a time,
+ * so a subscriber receives its snapshot and the following deltas in order, and a slow client only delays itself.
+ * Events are queued under the topic lock and written outside of it, so no socket write holds up publishing.
+ * A subscriber falling more than max-pending-events behind is disconnected; its EventSource reconnects
+ * and starts over with a fresh snapshot.
+ */
+@Slf4j
+@Service
+public class LeaderboardPushServiceImpl implements LeaderboardPushService {
+
+    /**
+     * Upper bound of the page limit of a subscription, which also bounds the number of topics
+     */
+    public static final int MAX_PAGE_LIMIT = 100;
+
+    private final GameService gameService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService fanOutExecutor;
+    private final long subscriptionTimeoutMillis;
+    private final int keepAliveTicks;
+    private final int maxPendingEvents;
+    private final Counter dropped;
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private LocalDate lastTickDate = LocalDate.now();
+    private int idleTicks;
+
+    public LeaderboardPushServiceImpl(GameService gameService,
+                                      ObjectMapper objectMapper,
+                                      @Value("${leaderboard.push.fan-out-threads:4}") int fanOutThreads,
+                                      @Value("${leaderboard.push.subscription-timeout-millis:1800000}") long subscriptionTimeoutMillis,
+                                      @Value("${leaderboard.push.keep-alive-ticks:15}") int keepAliveTicks,
+                                      @Value("${leaderboard.push.max-pending-events:16}") int maxPendingEvents,
+                                      MeterRegistry meterRegistry) {
+        this.gameService = gameService;
+        this.objectMapper = objectMapper;
+        this.fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads);
+        this.subscriptionTimeoutMillis = subscriptionTimeoutMillis;
+        this.keepAliveTicks = keepAliveTicks;
+        this.maxPendingEvents = Math.max(1, maxPendingEvents);
+        this.dropped = meterRegistry.counter("leaderboard.push.dropped");
+
+        // Gauges of open subscriptions and topics, and of the fan-out pool and its queue
+        Gauge.builder("leaderboard.push.subscribers", topics,
+                        map -> map.values().stream().mapToInt(topic -> topic.subscribers.size()).sum())
+                .register(meterRegistry);
+        Gauge.builder("leaderboard.push.topics", topics, Map::size)
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(fanOutExecutor, "leaderboard.push.fan-out", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * This method subscribes to changes of a leaderboard.
+     * The first event is a "snapshot" with the whole current top-N, followed by "delta" events that only
+     * hold the players whose rank or score changed.
+     *
+     * @param period    Time window of the leaderboard
+     * @param pageLimit Size of the followed top-N. Should be between 1 and MAX_PAGE_LIMIT
+     * @return Emitter that the events are written to
+     * @throws Exception if page limit is out of range or the snapshot cannot be encoded
+     */
+    @Override
+    public SseEmitter subscribe(LeaderboardPeriod period, int pageLimit) throws Exception {
+        if (pageLimit <= 0 || pageLimit > MAX_PAGE_LIMIT)
+            throw new Exception("Page limit should be between 1 and " + MAX_PAGE_LIMIT + ".");
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(subscriptionTimeoutMillis));
+        while (true) {
+            Topic topic = topics.computeIfAbsent(period + ":" + pageLimit, key -> new Topic(period, pageLimit));
+            synchronized (topic) {
+                if (topic.closed) {
+                    // Topic was dropped by the tick after we looked it up, retry with a fresh one
+                    continue;
+                }
+                if (topic.ranking == null) {
+                    topic.ranking = load(topic);
+                }
+                // Queued under the topic lock, so the snapshot comes before every delta computed after it
+                String data = objectMapper.writeValueAsString(topic.ranking);
+                enqueue(topic, subscriber, SseEmitter.event().name("snapshot").data(data, MediaType.APPLICATION_JSON));
+                topic.subscribers.add(subscriber);
+            }
+            Runnable unsubscribe = () -> {
+                topic.subscribers.remove(subscriber);
+                subscriber.close();
+            };
+            subscriber.emitter.onCompletion(unsubscribe);
+            subscriber.emitter.onTimeout(unsubscribe);
+            subscriber.emitter.onError(throwable -> unsubscribe.run());
+            return subscriber.emitter;
+        }
+    }
+
+    /**
+     * This method marks leaderboards as changed. It is cheap so it does not slow down game submission,
+     * the actual work happens on the next tick.
+     *
+     * @param event Event of the saved game
+     */
+    @EventListener
+    public void onGameRecorded(GameRecordedEvent event) {
+        dirty.set(true);
+    }
+
+    /**
+     * This method publishes deltas of all topics if any game was saved or the day changed since the last tick,
+     * and otherwise periodically sends a keep-alive comment so closed connections are detected.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.push.tick-millis:1000}")
+    public void tick() {
+        LocalDate today = LocalDate.now();
+        boolean changed = dirty.getAndSet(false) || !today.equals(lastTickDate);
+        lastTickDate = today;
+        boolean keepAlive = !changed && ++idleTicks >= keepAliveTicks;
+        if (!changed && !keepAlive) {
+            return;
+        }
+        idleTicks = 0;
+
+        for (Topic topic : topics.values()) {
+            try {
+                if (changed) {
+                    publishDelta(topic);
+                } else {
+                    synchronized (topic) {
+                        fanOut(topic, () -> SseEmitter.event().comment("keep-alive"));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Could not publish leaderboard {} top {}", topic.period, topic.pageLimit, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        fanOutExecutor.shutdownNow();
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void publishDelta(Topic topic) throws JsonProcessingException {
+        if (topic.subscribers.isEmpty()) {
+            synchronized (topic) {
+                if (topic.subscribers.isEmpty()) {
+                    topic.closed = true;
+                    topics.remove(topic.period + ":" + topic.pageLimit, topic);
+                    return;
+                }
+            }
+        }
+
+        List<GameDao> ranking = load(topic);
+        synchronized (topic) {
+            List<LeaderboardDeltaDao> delta = diff(topic.ranking, ranking);
+            topic.ranking = ranking;
+            if (delta.isEmpty()) {
+                return;
+            }
+            String data = objectMapper.writeValueAsString(delta);
+            fanOut(topic, () -> SseEmitter.event().name("delta").data(data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * This method queues an event for every subscriber of a topic. It never writes to a socket,
+     * and is called under the topic lock so all subscribers get the events of a topic in the same order.
+     *
+     * @param topic Topic whose subscribers receive the event
+     * @param event Builder of the event per subscriber
+     */
+    private void fanOut(Topic topic, Supplier<SseEmitter.SseEventBuilder> event) {
+        for (Subscriber subscriber : topic.subscribers) {
+            enqueue(topic, subscriber, event.get());
+        }
+    }
+
+    /**
+     * This method queues an event for a subscriber and starts a writer task if none is running for it.
+     * A subscriber with a full queue is removed from the topic and completed by its writer.
+     *
+     * @param topic      Topic of the subscriber
+     * @param subscriber Subscriber receiving the event
+     * @param event      Event to send
+     */
+    private void enqueue(Topic topic, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        boolean startWriter;
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return;
+            }
+            if (subscriber.pending.size() >= maxPendingEvents) {
+                subscriber.closed = true;
+                subscriber.pending.clear();
+                topic.subscribers.remove(subscriber);
+                dropped.increment();
+            } else {
+                subscriber.pending.add(event);
+            }
+            startWriter = !subscriber.writing;
+            subscriber.writing = true;
+        }
+        if (startWriter) {
+            fanOutExecutor.execute(() -> write(topic, subscriber));
+        }
+    }
+
+    /**
+     * This method writes the queued events of a subscriber in order until its queue is empty.
+     * Only one writer runs per subscriber, and a failed or dropped subscriber is completed by it.
+     *
+     * @param topic      Topic of the subscriber
+     * @param subscriber Subscriber whose events are written
+     */
+    private void write(Topic topic, Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            boolean closed;
+            synchronized (subscriber) {
+                closed = subscriber.closed;
+                event = closed ? null : subscriber.pending.poll();
+                if (event == null) {
+                    subscriber.writing = false;
+                }
+            }
+            if (event == null) {
+                if (closed) {
+                    subscriber.emitter.complete();
+                }
+                return;
+            }
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                topic.subscribers.remove(subscriber);
+                subscriber.close();
+                synchronized (subscriber) {
+                    subscriber.writing = false;
+                }
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    private List<GameDao> load(Topic topic) {
+        return topic.period == LeaderboardPeriod.WEEKLY
+                ? gameService.getWeeklyGameRecordList(topic.pageLimit)
+                : gameService.getMonthlyGameRecordList(topic.pageLimit);
+    }
+
+    /**
+     * This method finds the entries of a ranking whose rank or score differ from the previous ranking.
+     * Players that are no longer in the ranking are returned with null rank and score.
+     *
+     * @param previous Ranking that subscribers currently have
+     * @param current  New ranking
+     * @return A list of changed entries
+     */
+    static List<LeaderboardDeltaDao> diff(List<GameDao> previous, List<GameDao> current) {
+        if (previous == null) {
+            previous = Collections.emptyList();
+        }
+        Map<String, LeaderboardDeltaDao> previousEntries = new HashMap<>();
+        for (int i = 0; i < previous.size(); i++) {
+            previousEntries.put(previous.get(i).getUsername(),
+                    new LeaderboardDeltaDao(i + 1, previous.get(i).getUsername(), previous.get(i).getScore()));
+        }
+
+        List<LeaderboardDeltaDao> delta = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            GameDao gameDao = current.get(i);
+            LeaderboardDeltaDao previousEntry = previousEntries.remove(gameDao.getUsername());
+            if (previousEntry == null || previousEntry.getRank() != i + 1
+                    || !Objects.equals(previousEntry.getScore(), gameDao.getScore())) {
+                delta.add(new LeaderboardDeltaDao(i + 1, gameDao.getUsername(), gameDao.getScore()));
+            }
+        }
+        for (String username : previousEntries.keySet()) {
+            delta.add(new LeaderboardDeltaDao(null, username, null));
+        }
+        return delta;
+    }
+
+    /**
+     * Subscribers of one period and page limit together with the ranking they were last sent
+     */
+    private static class Topic {
+        private final LeaderboardPeriod period;
+        private final int pageLimit;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private List<GameDao> ranking;
+        private boolean closed;
+
+        private Topic(LeaderboardPeriod period, int pageLimit) {
+            this.period = period;
+            this.pageLimit = pageLimit;
+        }
+    }
+
+    /**
+     * Emitter of one subscription with the events not written to it yet
+     */
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean writing;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameDao;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of every player's scores per day, used for leaderboards of arbitrary date ranges.
+ * Each player keeps the days they played in ascending order together with cumulative sums of their scores and
+ * games, so the total of any range is the difference of two prefix sums found by binary search,
+ * and a range leaderboard costs O(players * log days) regardless of the number of games. Players whose games of
+ * a range were all retracted have no games in it and are left out, even though a day stays once it was added.
+ * It is loaded once before the server accepts requests and then follows saved games through their events.
+ * It also keeps the players of the weekly and monthly windows in an ordered ranking, updated with every saved game
+ * and rebuilt from the daily totals by a scheduled job once a day when the windows move.
+ * Games with a season or mode are indexed twice, in the global board and in the board of their key. Every board
+ * has its own players, rankings and lock, so saving a game of one season never waits for readers of another.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class LeaderboardRangeIndex implements SmartInitializingSingleton {
+
+    private static final Comparator<GameDao> RANKING = Comparator.comparing(GameDao::getScore).reversed()
+            .thenComparing(GameDao::getUsername);
+
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GameChangeLog gameChangeLog;
+
+    /**
+     * Change log position of the load, games of the changes it covers are loaded already
+     */
+    private volatile GameChangeLog.Position loadedPosition;
+    private final int maxBoards;
+    private final Set<String> seasons;
+    private final Set<String> modes;
+    private final Counter skippedGames;
+
+    private final Board global = new Board(null);
+    private final Map<LeaderboardKey, Board> boards = new ConcurrentHashMap<>();
+    private final AtomicLong playerDayCount = new AtomicLong();
+
+    public LeaderboardRangeIndex(GameRepository gameRepository, PlatformTransactionManager transactionManager,
+                                 GameChangeLog gameChangeLog,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${leaderboard.boards.max:1000}") int maxBoards,
+                                 @Value("${leaderboard.seasons:}") Set<String> seasons,
+                                 @Value("${leaderboard.modes:}") Set<String> modes) {
+        this.gameRepository = gameRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.gameChangeLog = gameChangeLog;
+        this.maxBoards = maxBoards;
+        this.seasons = seasons;
+        this.modes = modes;
+        this.skippedGames = meterRegistry.counter("leaderboard.range.skipped_games");
+        Gauge.builder("leaderboard.range.players", global.players, Map::size).register(meterRegistry);
+        Gauge.builder("leaderboard.range.player_days", playerDayCount, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("leaderboard.range.boards", boards, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * This method loads the daily totals of all games. It runs after all singletons are created and
+     * before the web server starts, so no game can be saved by this instance between the load and the first event.
+     * Games of other instances read from the change log are skipped when the load already saw them.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            loadedPosition = gameChangeLog.readPosition();
+            try (Stream<Object[]> rows = gameRepository.streamDailyTotals()) {
+                rows.forEach(row -> {
+                    String username = (String) row[0];
+                    LocalDate day = (LocalDate) row[1];
+                    long score = ((Number) row[2]).longValue();
+                    int games = ((Number) row[5]).intValue();
+                    global.add(username, day, score, games);
+                    LeaderboardKey key = LeaderboardKey.ofSaved((String) row[3], (String) row[4]);
+                    if (key != null) {
+                        Board board = board(key);
+                        if (board != null) {
+                            board.add(username, day, score, games);
+                        }
+                    }
+                });
+            }
+        });
+        LocalDate today = LocalDate.now();
+        global.rebuildRankings(today);
+        boards.values().forEach(board -> board.rebuildRankings(today));
+        log.info("Loaded {} daily totals of {} players in {} season and mode boards into the range leaderboard index in {} ms",
+                playerDayCount.get(), global.players.size(), boards.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * This method adds a saved game to its player's day, in the global board and the board of its key,
+     * or takes a retracted game out of it.
+     *
+     * @param event Event of the saved game
+     */
+    @EventListener
+    public void onGameRecorded(GameRecordedEvent event) {
+        if (loadedPosition != null && loadedPosition.covers(event.getChangeId())) {
+            return;
+        }
+        if (event.getEndTime() == null) {
+            return;
+        }
+        int score = event.isRetracted() ? -event.getScore() : event.getScore();
+        int games = event.isRetracted() ? -1 : 1;
+        global.record(event.getUsername(), event.getEndTime(), score, games);
+        if (event.getLeaderboardKey() != null) {
+            Board board = board(event.getLeaderboardKey());
+            if (board != null) {
+                board.record(event.getUsername(), event.getEndTime(), score, games);
+            }
+        }
+    }
+
+    /**
+     * This method checks that a season and mode are configured, so games can only create a bounded set of boards.
+     *
+     * @param key Key of the game's board, null for none
+     * @throws Exception if the season is not in leaderboard.seasons or the mode is not in leaderboard.modes
+     */
+    public void checkKey(LeaderboardKey key) throws Exception {
+        if (key == null) return;
+        if (key.getSeason() != null && !seasons.contains(key.getSeason()))
+            throw new Exception("Season " + key.getSeason() + " is not one of the configured seasons.");
+        if (key.getMode() != null && !modes.contains(key.getMode()))
+            throw new Exception("Mode " + key.getMode() + " is not one of the configured modes.");
+    }
+
+    /**
+     * This method finds the board of a key and creates it if the number of boards is below its maximum.
+     * Games of a key without a board still count in the global board, they are only missing from the board
+     * of their key, which is logged and counted.
+     *
+     * @param key Key of the board
+     * @return Board of the key, or null if it has none and no more boards are kept
+     */
+    private Board board(LeaderboardKey key) {
+        Board board = boards.get(key);
+        if (board != null) {
+            return board;
+        }
+        // Checking and creating under one lock keeps concurrent games of new keys from going over the maximum
+        synchronized (boards) {
+            board = boards.get(key);
+            if (board == null && boards.size() < maxBoards) {
+                board = new Board(key);
+                boards.put(key, board);
+            }
+        }
+        if (board == null) {
+            if (skippedGames.count() == 0) {
+                log.warn("Not indexing games of {} and further new keys, at most {} season and mode boards are kept", key, maxBoards);
+            }
+            skippedGames.increment();
+        }
+        return board;
+    }
+
+    /**
+     * This method lists the players ranked around a player in a rolling window.
+     *
+     * @param key      Key of the board, null for the global leaderboard
+     * @param period   Time window of the ranking
+     * @param username Username of the player
+     * @param radius   Number of players listed above and below the player
+     * @return Ranked players ordered by rank, empty if the player has no games in the window
+     */
+    public List<RankedGameDao> getAround(LeaderboardKey key, LeaderboardPeriod period, String username, int radius) {
+        Board board = key == null ? global : boards.get(key);
+        return board == null ? List.of() : board.around(period, username, radius);
+    }
+
+    /**
+     * This method lists the top players of a rolling window from its ranking, in O(log n + pageLimit).
+     *
+     * @param key       Key of the board, null for the global leaderboard
+     * @param period    Time window of the ranking
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return Players with at least one game in the window, ordered by total score in decreasing order
+     */
+    public List<GameDao> getTop(LeaderboardKey key, LeaderboardPeriod period, int pageLimit) {
+        Board board = key == null ? global : boards.get(key);
+        return board == null ? List.of() : board.top(period, pageLimit);
+    }
+
+    /**
+     * This method ranks players by their total score of the games that ended in the given days.
+     *
+     * @param key       Key of the board, null for the global leaderboard
+     * @param from      First day of the range, inclusive, or null for no lower bound
+     * @param to        Last day of the range, inclusive, or null for no upper bound
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return Players with at least one game in the range, ordered by total score in decreasing order
+     */
+    public List<GameDao> getLeaderboard(LeaderboardKey key, LocalDate from, LocalDate to, int pageLimit) {
+        Board board = key == null ? global : boards.get(key);
+        return board == null ? List.of() : board.leaderboard(from, to, pageLimit);
+    }
+
+    /**
+     * This method moves the weekly and monthly windows of every board once the day changes.
+     * Until a board is rolled over, its rankings keep the windows of the previous day.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.range.rollover-check-millis:10000}")
+    public void rollOver() {
+        rollOver(LocalDate.now());
+    }
+
+    void rollOver(LocalDate today) {
+        if (!today.equals(global.getRankingDay())) {
+            global.rebuildRankings(today);
+        }
+        for (Board board : boards.values()) {
+            if (!today.equals(board.getRankingDay())) {
+                board.rebuildRankings(today);
+            }
+        }
+    }
+
+    private static Map<LeaderboardPeriod, LeaderboardRanking> emptyRankings() {
+        Map<LeaderboardPeriod, LeaderboardRanking> rankings = new EnumMap<>(LeaderboardPeriod.class);
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            rankings.put(period, new LeaderboardRanking());
+        }
+        return rankings;
+    }
+
+    /**
+     * This method finds the first day any player played.
+     *
+     * @return Earliest day in the index, or null if it is empty
+     */
+    public LocalDate getFirstDay() {
+        int first = Integer.MAX_VALUE;
+        for (PlayerDays days : global.players.values()) {
+            first = Math.min(first, days.firstDay());
+        }
+        return first == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(first);
+    }
+
+    /**
+     * Players and rankings of one leaderboard. The ranking lock is the board itself.
+     */
+    private final class Board {
+        private final LeaderboardKey key;
+        private final Map<String, PlayerDays> players = new ConcurrentHashMap<>();
+        private Map<LeaderboardPeriod, LeaderboardRanking> rankings = emptyRankings();
+        private LocalDate rankingDay = LocalDate.now();
+
+        /**
+         * Players whose games were recorded while rankings are rebuilt, null while no rebuild runs
+         */
+        private Set<String> recordedDuringRebuild;
+
+        private Board(LeaderboardKey key) {
+            this.key = key;
+        }
+
+        private void add(String username, LocalDate day, long score, int games) {
+            if (players.computeIfAbsent(username, name -> new PlayerDays()).add((int) day.toEpochDay(), score, games)) {
+                playerDayCount.incrementAndGet();
+            }
+        }
+
+        // Adding under the ranking lock lets a concurrent rebuild know which players to rank again
+        private synchronized void record(String username, LocalDate endTime, int score, int games) {
+            add(username, endTime, score, games);
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.add(username);
+            }
+            rank(rankings, rankingDay, username);
+        }
+
+        private synchronized List<RankedGameDao> around(LeaderboardPeriod period, String username, int radius) {
+            return rankings.get(period).around(username, radius);
+        }
+
+        private synchronized List<GameDao> top(LeaderboardPeriod period, int pageLimit) {
+            List<GameDao> top = new ArrayList<>();
+            for (RankedGameDao ranked : rankings.get(period).top(pageLimit)) {
+                top.add(gameDao(ranked.getUsername(), ranked.getScore()));
+            }
+            return top;
+        }
+
+        private GameDao gameDao(String username, long score) {
+            GameDao gameDao = new GameDao();
+            gameDao.setUsername(username);
+            gameDao.setScore((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, score)));
+            if (key != null) {
+                gameDao.setSeason(key.getSeason());
+                gameDao.setMode(key.getMode());
+            }
+            return gameDao;
+        }
+
+        private synchronized LocalDate getRankingDay() {
+            return rankingDay;
+        }
+
+        /**
+         * This method ranks every player again for the windows ending at the given day, in O(players * log days).
+         * The new rankings are built without holding the ranking lock, so games and reads of the board go on
+         * with the current rankings meanwhile. Players whose games were recorded during the build are ranked
+         * again from their day totals before the new rankings are swapped in. Only one rebuild of a board runs
+         * at a time, from the load and then from the scheduled rollover.
+         *
+         * @param today Last day of the windows
+         */
+        private void rebuildRankings(LocalDate today) {
+            synchronized (this) {
+                recordedDuringRebuild = new HashSet<>();
+            }
+            Map<LeaderboardPeriod, LeaderboardRanking> rebuilt = emptyRankings();
+            for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+                int fromDay = (int) period.getStart(today).toEpochDay();
+                int toDay = (int) today.toEpochDay();
+                LeaderboardRanking ranking = rebuilt.get(period);
+                for (Map.Entry<String, PlayerDays> entry : players.entrySet()) {
+                    Long sum = entry.getValue().sum(fromDay, toDay);
+                    if (sum != null) {
+                        ranking.put(entry.getKey(), sum);
+                    }
+                }
+            }
+            synchronized (this) {
+                for (String username : recordedDuringRebuild) {
+                    rank(rebuilt, today, username);
+                }
+                recordedDuringRebuild = null;
+                rankings = rebuilt;
+                rankingDay = today;
+            }
+        }
+
+        /**
+         * This method sets a player's totals in the windows ending at the given day that the player played in,
+         * and takes the player out of the windows left without games.
+         */
+        private void rank(Map<LeaderboardPeriod, LeaderboardRanking> rankings, LocalDate today, String username) {
+            PlayerDays days = players.get(username);
+            for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+                Long sum = days.sum((int) period.getStart(today).toEpochDay(), (int) today.toEpochDay());
+                if (sum != null) {
+                    rankings.get(period).put(username, sum);
+                } else {
+                    rankings.get(period).remove(username);
+                }
+            }
+        }
+
+        private List<GameDao> leaderboard(LocalDate from, LocalDate to, int pageLimit) {
+            int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+            int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+            PriorityQueue<GameDao> top = new PriorityQueue<>(Math.min(pageLimit, 1024) + 1, RANKING.reversed());
+            for (Map.Entry<String, PlayerDays> entry : players.entrySet()) {
+                Long sum = entry.getValue().sum(fromDay, toDay);
+                if (sum == null) {
+                    continue;
+                }
+                top.add(gameDao(entry.getKey(), sum));
+                if (top.size() > pageLimit) {
+                    top.poll();
+                }
+            }
+            List<GameDao> leaderboard = new ArrayList<>(top);
+            leaderboard.sort(RANKING);
+            return leaderboard;
+        }
+    }
+
+    /**
+     * Days a player played, ascending, with the cumulative score and number of games up to and including each day.
+     * Games nearly always end today, so adding is an append or an update of the last entry.
+     */
+    private static final class PlayerDays {
+        private int[] days = new int[4];
+        private long[] prefixSums = new long[4];
+        private int[] prefixGames = new int[4];
+        private int size;
+
+        /**
+         * @param games Number of games added, negative when games are retracted
+         * @return true if a new day was added
+         */
+        synchronized boolean add(int day, long score, int games) {
+            int last = size - 1;
+            if (size > 0 && days[last] == day) {
+                prefixSums[last] += score;
+                prefixGames[last] += games;
+                return false;
+            }
+            int position = size > 0 && days[last] > day ? Arrays.binarySearch(days, 0, size, day) : -size - 1;
+            boolean added = position < 0;
+            if (added) {
+                position = -position - 1;
+                if (size == days.length) {
+                    days = Arrays.copyOf(days, size * 2);
+                    prefixSums = Arrays.copyOf(prefixSums, size * 2);
+                    prefixGames = Arrays.copyOf(prefixGames, size * 2);
+                }
+                System.arraycopy(days, position, days, position + 1, size - position);
+                System.arraycopy(prefixSums, position, prefixSums, position + 1, size - position);
+                System.arraycopy(prefixGames, position, prefixGames, position + 1, size - position);
+                days[position] = day;
+                prefixSums[position] = position > 0 ? prefixSums[position - 1] : 0;
+                prefixGames[position] = position > 0 ? prefixGames[position - 1] : 0;
+                size++;
+            }
+            // Out of order days also shift the sums of every later day
+            for (int i = position; i < size; i++) {
+                prefixSums[i] += score;
+                prefixGames[i] += games;
+            }
+            return added;
+        }
+
+        /**
+         * @return first day the player played, or Integer.MAX_VALUE if none
+         */
+        synchronized int firstDay() {
+            return size > 0 ? days[0] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * @return total score of the days in the range, or null if the player has no games in it that are not retracted
+         */
+        synchronized Long sum(int fromDay, int toDay) {
+            int low = position(fromDay, false);
+            int high = position(toDay, true);
+            if (low >= high || prefixGames[high - 1] - (low > 0 ? prefixGames[low - 1] : 0) <= 0) {
+                return null;
+            }
+            return prefixSums[high - 1] - (low > 0 ? prefixSums[low - 1] : 0);
+        }
+
+        /**
+         * @return index of the first day after the given day if after is set, otherwise of the first day not before it
+         */
+        private int position(int day, boolean after) {
+            int position = Arrays.binarySearch(days, 0, size, day);
+            if (position < 0) {
+                return -position - 1;
+            }
+            return after ? position + 1 : position;
+        }
+    }
+}
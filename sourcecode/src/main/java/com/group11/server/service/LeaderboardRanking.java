@@ -0,0 +1,194 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.RankedGameDao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Players ordered by total score in decreasing order, then by username, kept in a treap whose nodes know the size
+ * of their subtree. Updating a player and finding a player's rank cost O(log n), and listing k players from a rank
+ * costs O(log n + k), so a slice deep in the ranking never skips over the rows before it.
+ * It is not thread safe, the owner guards it with a lock.
+ */
+class LeaderboardRanking {
+
+    private final Map<String, Long> scores = new HashMap<>();
+    private Node root;
+
+    /**
+     * This method sets the total score of a player, adding the player if needed.
+     *
+     * @param username Username of the player
+     * @param score    New total score
+     */
+    void put(String username, long score) {
+        Long previous = scores.put(username, score);
+        if (previous != null) {
+            root = remove(root, username, previous);
+        }
+        Node[] parts = split(root, username, score);
+        root = merge(merge(parts[0], new Node(username, score)), parts[1]);
+    }
+
+    /**
+     * This method takes a player out of the ranking.
+     *
+     * @param username Username of the player
+     */
+    void remove(String username) {
+        Long previous = scores.remove(username);
+        if (previous != null) {
+            root = remove(root, username, previous);
+        }
+    }
+
+    /**
+     * This method lists the players around a player.
+     *
+     * @param username Username of the player
+     * @param radius   Number of players listed above and below the player
+     * @return Ranked players ordered by rank, empty if the player is not ranked
+     */
+    List<RankedGameDao> around(String username, int radius) {
+        Long score = scores.get(username);
+        List<RankedGameDao> slice = new ArrayList<>();
+        if (score == null) {
+            return slice;
+        }
+        int rank = countBefore(root, username, score);
+        int from = Math.max(0, rank - radius);
+        collect(root, from, rank + radius + 1, 0, slice);
+        return slice;
+    }
+
+    /**
+     * This method lists the players with the highest scores.
+     *
+     * @param limit Number of players listed
+     * @return Ranked players ordered by rank
+     */
+    List<RankedGameDao> top(int limit) {
+        List<RankedGameDao> slice = new ArrayList<>();
+        collect(root, 0, limit, 0, slice);
+        return slice;
+    }
+
+    /**
+     * @return Number of ranked players
+     */
+    int size() {
+        return scores.size();
+    }
+
+    private static int compare(String username, long score, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        return username.compareTo(node.username);
+    }
+
+    private static int countBefore(Node node, String username, long score) {
+        int count = 0;
+        while (node != null) {
+            int comparison = compare(username, score, node);
+            if (comparison <= 0) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method adds the nodes whose rank is in [from, to) to the list, visiting only subtrees overlapping it.
+     */
+    private static void collect(Node node, int from, int to, int offset, List<RankedGameDao> slice) {
+        if (node == null || from >= offset + node.size || to <= offset) {
+            return;
+        }
+        int position = offset + size(node.left);
+        collect(node.left, from, to, offset, slice);
+        if (position >= from && position < to) {
+            int score = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, node.score));
+            slice.add(new RankedGameDao(position + 1, node.username, score));
+        }
+        collect(node.right, from, to, position + 1, slice);
+    }
+
+    /**
+     * @return nodes ordered before the key and the rest
+     */
+    private static Node[] split(Node node, String username, long score) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(username, score, node) > 0) {
+            Node[] parts = split(node.right, username, score);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, username, score);
+        node.left = parts[1];
+        node.update();
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node remove(Node node, String username, long score) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(username, score, node);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, username, score);
+        } else {
+            node.right = remove(node.right, username, score);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final String username;
+        private final long score;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(String username, long score) {
+            this.username = username;
+            this.score = score;
+        }
+
+        private void update() {
+            size = 1 + LeaderboardRanking.size(left) + LeaderboardRanking.size(right);
+        }
+    }
+}
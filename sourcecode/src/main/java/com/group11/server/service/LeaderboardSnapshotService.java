@@ -0,0 +1,12 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.LeaderboardSnapshotDao;
+import com.group11.server.model.LeaderboardPeriod;
+
+import java.time.LocalDate;
+
+public interface LeaderboardSnapshotService {
+    int snapshotClosedPeriods();
+    LeaderboardSnapshotDao getSnapshot(LeaderboardPeriod period, LocalDate date, int pageLimit) throws Exception;
+    int deleteSnapshotsFrom(LocalDate date);
+}
@@ -0,0 +1,180 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameDao;
+import com.group11.server.dao.LeaderboardSnapshotDao;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.model.LeaderboardSnapshot;
+import com.group11.server.model.LeaderboardSnapshotEntry;
+import com.group11.server.repository.LeaderboardSnapshotEntryRepository;
+import com.group11.server.repository.LeaderboardSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Frozen final rankings of closed calendar weeks and months. Once a period has ended its ranking can no longer
+ * change, so it is computed once from the in-memory range index and stored, and history requests read the stored
+ * ranking instead of aggregating games. A periodic job snapshots every period that closed since the last snapshot;
+ * on an empty snapshot table it starts from the first day any game was played.
+ * Games retracted after a period was snapshotted do not change its snapshot. A bulk import deletes the snapshots of
+ * the periods its games fall in and later, so they are taken again once the index is reloaded with the imported games.
+ */
+@Slf4j
+@Lazy(false)
+@Service
+public class LeaderboardSnapshotServiceImpl implements LeaderboardSnapshotService {
+
+    private final LeaderboardRangeIndex leaderboardRangeIndex;
+    private final LeaderboardSnapshotRepository leaderboardSnapshotRepository;
+    private final LeaderboardSnapshotEntryRepository leaderboardSnapshotEntryRepository;
+    private final SessionFactory sessionFactory;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public LeaderboardSnapshotServiceImpl(LeaderboardRangeIndex leaderboardRangeIndex,
+                                          LeaderboardSnapshotRepository leaderboardSnapshotRepository,
+                                          LeaderboardSnapshotEntryRepository leaderboardSnapshotEntryRepository,
+                                          EntityManagerFactory entityManagerFactory,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${leaderboard.snapshot.enabled:true}") boolean enabled,
+                                          @Value("${leaderboard.snapshot.batch-size:1000}") int batchSize) {
+        this.leaderboardRangeIndex = leaderboardRangeIndex;
+        this.leaderboardSnapshotRepository = leaderboardSnapshotRepository;
+        this.leaderboardSnapshotEntryRepository = leaderboardSnapshotEntryRepository;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * This method snapshots every calendar week and month that ended before today and has no snapshot yet.
+     *
+     * @return Number of snapshotted periods
+     */
+    @Override
+    @Scheduled(initialDelayString = "${leaderboard.snapshot.initial-delay-millis:10000}",
+            fixedDelayString = "${leaderboard.snapshot.interval-millis:3600000}")
+    public int snapshotClosedPeriods() {
+        if (!enabled) return 0;
+        LocalDate today = LocalDate.now();
+        int snapshots = 0;
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            LocalDate lastClosedStart = period.getCalendarStart(period.getCalendarStart(today).minusDays(1));
+            Optional<LeaderboardSnapshot> latest = leaderboardSnapshotRepository.findFirstByPeriodOrderByPeriodStartDesc(period);
+            LocalDate start;
+            if (latest.isPresent()) {
+                start = latest.get().getPeriodEnd().plusDays(1);
+            } else {
+                LocalDate firstDay = leaderboardRangeIndex.getFirstDay();
+                if (firstDay == null) continue;
+                start = period.getCalendarStart(firstDay);
+            }
+            for (; !start.isAfter(lastClosedStart); start = period.getCalendarEnd(start).plusDays(1)) {
+                if (snapshot(period, start)) {
+                    snapshots++;
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * This method reads the final ranking of a closed calendar week or month.
+     *
+     * @param period    Kind of period
+     * @param date      Any day of the period, or null for the latest snapshotted period
+     * @param pageLimit Size of the returning list. Should be positive int
+     * @return Top of the period's final ranking
+     * @throws Exception if page limit is not positive or the period has no snapshot
+     */
+    @Override
+    public LeaderboardSnapshotDao getSnapshot(LeaderboardPeriod period, LocalDate date, int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        LocalDate start;
+        if (date == null) {
+            Optional<LeaderboardSnapshot> latest = leaderboardSnapshotRepository.findFirstByPeriodOrderByPeriodStartDesc(period);
+            if (latest.isEmpty()) throw new Exception("No closed period has a snapshot yet.");
+            start = latest.get().getPeriodStart();
+        } else {
+            start = period.getCalendarStart(date);
+        }
+        List<RankedGameDao> ranking = meterRegistry.timer("leaderboard.query", "period", period.name().toLowerCase() + "_history")
+                .record(() -> leaderboardSnapshotEntryRepository.findRanking(period, start, pageLimit));
+        // Only an empty result needs the marker, to tell a period without games from one that is not snapshotted
+        if (ranking.isEmpty() && !leaderboardSnapshotRepository.existsById(new LeaderboardSnapshot.Key(period, start))) {
+            throw new Exception("Period has no snapshot, it is not closed yet.");
+        }
+        return new LeaderboardSnapshotDao(period, start, period.getCalendarEnd(start), ranking);
+    }
+
+    /**
+     * This method deletes the snapshots of the period containing a day and of all later periods in one transaction.
+     * The job takes them again from the periods after the latest remaining snapshot, so an instance must have
+     * loaded the games that changed them before its job runs.
+     *
+     * @param date Earliest day whose periods are snapshotted again
+     * @return Number of deleted snapshots
+     */
+    @Override
+    @Transactional
+    public int deleteSnapshotsFrom(LocalDate date) {
+        int deleted = 0;
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            LocalDate start = period.getCalendarStart(date);
+            leaderboardSnapshotEntryRepository.deleteFrom(period, start);
+            deleted += leaderboardSnapshotRepository.deleteFrom(period, start);
+        }
+        return deleted;
+    }
+
+    /**
+     * This method stores the final ranking of a period together with its marker in one transaction.
+     * When several instances snapshot the same period, the marker's primary key lets only one of them commit.
+     * The ranking is the index's at the time of the call; later retractions do not change it.
+     *
+     * @return true if the snapshot was stored by this call
+     */
+    private boolean snapshot(LeaderboardPeriod period, LocalDate start) {
+        LocalDate end = period.getCalendarEnd(start);
+        List<GameDao> ranking = leaderboardRangeIndex.getLeaderboard(null, start, end, Integer.MAX_VALUE);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                // The marker is inserted before batching starts, so a duplicate fails here and not at commit
+                session.insert(new LeaderboardSnapshot(period, start, end, ranking.size(), LocalDateTime.now()));
+                session.setJdbcBatchSize(batchSize);
+                for (int i = 0; i < ranking.size(); i++) {
+                    GameDao gameDao = ranking.get(i);
+                    session.insert(new LeaderboardSnapshotEntry(period, start, i + 1, gameDao.getUsername(), gameDao.getScore()));
+                }
+                transaction.commit();
+            } catch (ConstraintViolationException e) {
+                transaction.rollback();
+                log.info("Leaderboard snapshot of {} {} was taken by another instance", period, start);
+                return false;
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
+        log.info("Took leaderboard snapshot of {} {} with {} players", period, start, ranking.size());
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.group11.server.service;
+
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the leaderboards, advanced whenever a game is saved.
+ * Leaderboards also change when the day changes, since their time windows move, so the current date is part of
+ * every tag. The tag also contains an id of this instance, so tags of different instances or restarts never collide.
+ */
+@Component
+public class LeaderboardVersion {
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastChangeMillis = System.currentTimeMillis();
+
+    /**
+     * This method advances the version after a game is saved.
+     *
+     * @param event Event of the saved game
+     */
+    @EventListener
+    public void onGameRecorded(GameRecordedEvent event) {
+        version.incrementAndGet();
+        lastChangeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * This method creates the entity tag of a leaderboard response.
+     *
+     * @param period    Time window of the leaderboard
+     * @param pageLimit Size of the returned list
+     * @return A strong entity tag, quoted
+     */
+    public String getETag(LeaderboardPeriod period, int pageLimit) {
+        return getETag(null, period, pageLimit);
+    }
+
+    /**
+     * This method creates the entity tag of a season and mode leaderboard response. Every saved game advances
+     * the version of all boards, which is never stale but may make a tag of an unchanged board stale.
+     *
+     * @param leaderboardKey Season and mode of the leaderboard, null for the global leaderboard
+     * @param period         Time window of the leaderboard
+     * @param pageLimit      Size of the returned list
+     * @return A strong entity tag, quoted
+     */
+    public String getETag(LeaderboardKey leaderboardKey, LeaderboardPeriod period, int pageLimit) {
+        return "\"" + instanceId + "-" + version.get() + "-" + LocalDate.now().toEpochDay()
+                + "-" + period.name().toLowerCase() + "-" + pageLimit
+                + (leaderboardKey == null ? "" : "-" + leaderboardKey) + "\"";
+    }
+
+    /**
+     * This method returns the last time leaderboards changed, which is either the last saved game
+     * or the start of the current day.
+     *
+     * @return Epoch milliseconds of the last change
+     */
+    public long getLastModified() {
+        long startOfDay = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Math.max(lastChangeMillis, startOfDay);
+    }
+}
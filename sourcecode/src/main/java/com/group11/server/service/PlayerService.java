@@ -1,15 +1,19 @@
 package com.group11.server.service;
 
+import com.group11.server.dao.PlayerDao;
 import com.group11.server.model.Player;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface PlayerService {
     ResponseEntity<?> login(Player requestPlayer);
     Long getPlayerID(String username) throws Exception;
-    List<Player> getAllPlayers();
-    Player getPlayer(Long Id) throws Exception;
+    List<PlayerDao> getPlayerDirectory(Long afterId, int pageLimit) throws Exception;
+    void exportPlayerDirectory(OutputStream outputStream) throws IOException;
+    PlayerDao getPlayer(Long Id) throws Exception;
     ResponseEntity<?> register(Player player);
     String updatePlayer(Player requestPlayer, Long Id);
 
@@ -1,10 +1,18 @@
 package com.group11.server.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group11.server.dao.PlayerDao;
 import com.group11.server.model.Player;
+import com.group11.server.model.PlayerStats;
 import com.group11.server.repository.PlayerRepository;
+import com.group11.server.repository.PlayerStatsRepository;
 import com.group11.server.utils.JwtUtil;
+import com.group11.server.utils.ServerTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import net.bytebuddy.utility.RandomString;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -14,25 +22,38 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.mail.Session;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class PlayerServiceImpl implements PlayerService {
 
+    /**
+     * Upper bound of the player directory page size
+     */
+    public static final int MAX_DIRECTORY_PAGE_LIMIT = 1000;
+
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final UsersDetailsService usersDetailsService;
     private final PlayerRepository playerRepository;
+    private final PlayerStatsRepository playerStatsRepository;
     private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     /**
      * This method logins player with given credentials
+     * Lookup, password hash check and token creation are timed separately in the player.login timer.
      *
      * @param requestPlayer Player information that will be used for login action
      * @return JwtResponse with the current session's JWTToken
@@ -46,11 +67,23 @@ public class PlayerServiceImpl implements PlayerService {
             return ResponseEntity.status(400).body("Password cannot be empty.");
         }
         try {
-            Optional<Player> optPlayer = playerRepository.findByUsername(requestPlayer.getUsername());
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Optional<Player> optPlayer;
+            try {
+                optPlayer = playerRepository.findByUsername(requestPlayer.getUsername());
+            } finally {
+                // Lookups that fail are timed as well
+                sample.stop(meterRegistry.timer("player.login", "phase", "lookup"));
+            }
             if (optPlayer.isEmpty()) {
                 return ResponseEntity.status(403).body("Incorrect username or password");
             }
-            if(!passwordEncoder.matches(requestPlayer.getPassword(), optPlayer.get().getPassword())) {
+            sample = Timer.start(meterRegistry);
+            long serverTimingStart = ServerTiming.start();
+            boolean matches = passwordEncoder.matches(requestPlayer.getPassword(), optPlayer.get().getPassword());
+            ServerTiming.stop(ServerTiming.HASH, serverTimingStart);
+            sample.stop(meterRegistry.timer("player.login", "phase", "hash"));
+            if(!matches) {
                 return ResponseEntity.status(403).body("Incorrect username or password");
             }
             Player player = optPlayer.get();
@@ -60,11 +93,13 @@ public class PlayerServiceImpl implements PlayerService {
             return ResponseEntity.status(500).body("Internal server error" + e.toString());
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         final UserDetails userDetails = usersDetailsService
                 .loadUserByUsername(requestPlayer.getUsername());
 
         //Creating authentication jwt token
         final String jwt = jwtUtil.generateToken(userDetails);
+        sample.stop(meterRegistry.timer("player.login", "phase", "token"));
         return ResponseEntity.ok(jwt);
     }
 
@@ -85,29 +120,56 @@ public class PlayerServiceImpl implements PlayerService {
     }
 
     /**
-     * This method gets all players in database.
+     * This method gets a page of the player directory ordered by ID.
+     * Pages are addressed by the last ID of the previous page instead of an offset,
+     * so every page costs the same regardless of how deep it is.
+     *
+     * @param afterId ID of the last player of the previous page, 0 for the first page
+     * @param pageLimit Size of the returning list. Should be positive int, at most MAX_DIRECTORY_PAGE_LIMIT
+     * @return List of players with their IDs and usernames
+     * @throws Exception if page limit is not positive
+     */
+    @Override
+    public List<PlayerDao> getPlayerDirectory(Long afterId, int pageLimit) throws Exception {
+        if (pageLimit <= 0) throw new Exception("Page limit should be positive.");
+        return playerRepository.findDirectoryPage(afterId, PageRequest.of(0, Math.min(pageLimit, MAX_DIRECTORY_PAGE_LIMIT)));
+    }
+
+    /**
+     * This method writes the whole player directory as newline delimited JSON.
+     * Rows are streamed from the database so memory use does not grow with the number of players.
      *
-     * @return List of all players
+     * @param outputStream Stream that players are written to
+     * @throws IOException if writing to the stream fails
      */
     @Override
-    public List<Player> getAllPlayers() {
-        return new ArrayList<>(playerRepository.findAll());
+    @Transactional(readOnly = true)
+    public void exportPlayerDirectory(OutputStream outputStream) throws IOException {
+        try (Stream<PlayerDao> players = playerRepository.streamDirectory()) {
+            Iterator<PlayerDao> iterator = players.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+            }
+        }
+        outputStream.flush();
     }
 
     /**
      * This method gets player with given ID.
+     * Only the public fields are returned, never the password hash or the reset password token.
      *
      * @param Id ID of the player that is wanted
-     * @return Player with the given ID
+     * @return ID, username and email of the player with the given ID
      * @throws Exception if ID does not exist
      */
     @Override
-    public Player getPlayer(Long Id) throws Exception {
+    public PlayerDao getPlayer(Long Id) throws Exception {
         Optional<Player> optPlayer = playerRepository.findById(Id);
         if (optPlayer.isEmpty()) throw new Exception("Player is not found");
 
         Player player = optPlayer.get();
-        return player;
+        return new PlayerDao(player.getId(), player.getUsername(), player.getEmail());
     }
 
     /**
@@ -119,6 +181,7 @@ public class PlayerServiceImpl implements PlayerService {
      * @return Response message of the server
      */
     @Override
+    @Transactional
     public ResponseEntity<?> register(Player player) {
 
         if (player.getUsername().isEmpty())
@@ -130,6 +193,8 @@ public class PlayerServiceImpl implements PlayerService {
         else {
             player.setPassword(passwordEncoder.encode(player.getPassword()));
             playerRepository.save(player);
+            // An empty statistics row lets the first games of the player only update it
+            playerStatsRepository.save(new PlayerStats(player.getUsername()));
             return ResponseEntity.ok("Player created successfully. Please log in");
         }
     }
@@ -219,7 +284,14 @@ public class PlayerServiceImpl implements PlayerService {
             props.put("mail.smtp.starttls.enable", "true");
             props.put("mail.debug", "true");
 
-            mailSender.send(message);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                mailSender.send(message);
+                sample.stop(meterRegistry.timer("mail.send", "outcome", "success"));
+            } catch (RuntimeException e) {
+                sample.stop(meterRegistry.timer("mail.send", "outcome", "failure"));
+                throw e;
+            }
 
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(403).body(e.toString());
@@ -0,0 +1,12 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.PlayerStatsDao;
+import com.group11.server.model.Game;
+
+public interface PlayerStatsService {
+    void recordGame(Game game);
+    void retractGame(Game game);
+    PlayerStatsDao getPlayerStats(Long playerId) throws Exception;
+    int rebuildPlayerStats() throws Exception;
+    void startRebuildPlayerStats() throws Exception;
+}
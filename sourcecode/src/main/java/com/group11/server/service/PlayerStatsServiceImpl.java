@@ -0,0 +1,275 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.PlayerDao;
+import com.group11.server.dao.PlayerStatsDao;
+import com.group11.server.model.Game;
+import com.group11.server.model.Player;
+import com.group11.server.model.PlayerStats;
+import com.group11.server.repository.GameRepository;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.repository.PlayerStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class PlayerStatsServiceImpl implements PlayerStatsService {
+
+    private final PlayerStatsRepository playerStatsRepository;
+    private final PlayerRepository playerRepository;
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkSize;
+    private final int rebuildThreads;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor();
+
+    public PlayerStatsServiceImpl(PlayerStatsRepository playerStatsRepository,
+                                  PlayerRepository playerRepository,
+                                  GameRepository gameRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${player-stats.rebuild.chunk-size:500}") int rebuildChunkSize,
+                                  @Value("${player-stats.rebuild.threads:4}") int rebuildThreads) {
+        this.playerStatsRepository = playerStatsRepository;
+        this.playerRepository = playerRepository;
+        this.gameRepository = gameRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.rebuildThreads = rebuildThreads;
+    }
+
+    /**
+     * This method adds a saved game to the statistics of its player.
+     * It runs in the transaction that saves the game and holds the player's statistics row lock until it commits.
+     * Rows are created at registration and by a rebuild; a player registered before statistics existed gets
+     * an empty row inserted here, ignoring the duplicate when concurrent first games insert it too.
+     *
+     * @param game The saved game
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordGame(Game game) {
+        // Checked without locking, since a locking read of a missing row would take a gap lock the insert waits for
+        if (!playerStatsRepository.existsById(game.getUsername())) {
+            playerStatsRepository.insertMissing(List.of(game.getUsername()));
+        }
+        playerStatsRepository.findForUpdate(game.getUsername())
+                .ifPresent(stats -> accumulate(stats, 1, game.getScore(), game.getScore(), game.getEndTime()));
+    }
+
+    /**
+     * This method removes a game flagged by score validation from the statistics of its player.
+     * The best score is looked up again only when the removed game held it. The streak is kept,
+     * since the player did play on that day.
+     *
+     * @param game The flagged game, already saved as suspicious
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void retractGame(Game game) {
+        Optional<PlayerStats> optionalStats = playerStatsRepository.findForUpdate(game.getUsername());
+        if (optionalStats.isEmpty()) return;
+        PlayerStats stats = optionalStats.get();
+        stats.setGamesPlayed(Math.max(0, stats.getGamesPlayed() - 1));
+        stats.setTotalScore(stats.getTotalScore() - game.getScore());
+        if (game.getEndTime() != null
+                && game.getEndTime().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).equals(stats.getWeekStart())) {
+            stats.setWeekScore(stats.getWeekScore() - game.getScore());
+        }
+        if (game.getScore() >= stats.getBestScore()) {
+            Integer bestScore = gameRepository.findBestScore(game.getUsername());
+            stats.setBestScore(bestScore == null ? 0 : bestScore);
+        }
+    }
+
+    /**
+     * This method gets the statistics of the player with given ID.
+     *
+     * @param playerId ID of the player
+     * @return Statistics of the player, all zero if the player has not played yet
+     * @throws Exception if player does not exist
+     */
+    @Override
+    public PlayerStatsDao getPlayerStats(Long playerId) throws Exception {
+        Optional<Player> optionalPlayer = playerRepository.findById(playerId);
+        if (optionalPlayer.isEmpty()) throw new Exception("Player is not found.");
+        String username = optionalPlayer.get().getUsername();
+        PlayerStats stats = playerStatsRepository.findById(username).orElseGet(() -> new PlayerStats(username));
+        return toDao(stats, LocalDate.now());
+    }
+
+    /**
+     * This method recomputes the statistics of every player from the saved games and waits for it.
+     *
+     * @return Number of players whose statistics were rebuilt
+     * @throws Exception if a rebuild is already running or a chunk fails
+     */
+    @Override
+    public int rebuildPlayerStats() throws Exception {
+        if (!rebuilding.compareAndSet(false, true)) throw new Exception("Player statistics are already being rebuilt.");
+        try {
+            return rebuild();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * This method starts recomputing the statistics of every player on a background thread and returns
+     * right away, so the request that asks for it does not wait for all games to be read.
+     * The outcome is logged.
+     *
+     * @throws Exception if a rebuild is already running
+     */
+    @Override
+    public void startRebuildPlayerStats() throws Exception {
+        if (!rebuilding.compareAndSet(false, true)) throw new Exception("Player statistics are already being rebuilt.");
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("Could not rebuild player statistics", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * This method recomputes the statistics of every player.
+     * Players are split into chunks by ID and chunks are rebuilt in parallel, each in its own transaction
+     * that locks the statistics rows of the chunk, so games saved meanwhile are neither lost nor counted twice.
+     *
+     * @return Number of players whose statistics were rebuilt
+     * @throws Exception if a chunk fails
+     */
+    private int rebuild() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            long afterId = 0;
+            List<PlayerDao> players;
+            while (!(players = playerRepository.findDirectoryPage(afterId, PageRequest.of(0, rebuildChunkSize))).isEmpty()) {
+                List<String> usernames = players.stream().map(PlayerDao::getUsername).collect(Collectors.toList());
+                chunks.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildChunk(usernames))));
+                afterId = players.get(players.size() - 1).getId();
+            }
+            int rebuilt = 0;
+            for (Future<Integer> chunk : chunks) {
+                rebuilt += chunk.get();
+            }
+            log.info("Rebuilt statistics of {} players in {} chunks", rebuilt, chunks.size());
+            return rebuilt;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int rebuildChunk(List<String> usernames) {
+        // Every player of the chunk gets a row, which recordGame then only has to lock
+        playerStatsRepository.insertMissing(usernames);
+        // Locking before reading the games makes the read see every game committed by a concurrent recordGame
+        Map<String, PlayerStats> statsByUsername = playerStatsRepository.findAllForUpdate(usernames).stream()
+                .collect(Collectors.toMap(PlayerStats::getUsername, Function.identity()));
+        statsByUsername.values().forEach(PlayerStatsServiceImpl::reset);
+
+        for (Object[] row : gameRepository.findDailyTotalsByUsernames(usernames)) {
+            PlayerStats stats = statsByUsername.get((String) row[0]);
+            if (stats == null) continue;
+            accumulate(stats, ((Number) row[2]).longValue(), ((Number) row[3]).longValue(),
+                    ((Number) row[4]).intValue(), (LocalDate) row[1]);
+        }
+        return statsByUsername.size();
+    }
+
+    /**
+     * This method adds games that ended on the same day to statistics in constant time.
+     * Days older than the current week or the last played day only count towards totals.
+     *
+     * @param stats      Statistics to update
+     * @param games      Number of games
+     * @param scoreSum   Sum of scores of the games
+     * @param bestScore  Highest score of the games
+     * @param day        Day the games ended, may be null for games saved without an end time
+     */
+    static void accumulate(PlayerStats stats, long games, long scoreSum, int bestScore, LocalDate day) {
+        stats.setGamesPlayed(stats.getGamesPlayed() + games);
+        stats.setTotalScore(stats.getTotalScore() + scoreSum);
+        stats.setBestScore(Math.max(stats.getBestScore(), bestScore));
+        if (day == null) return;
+
+        LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        if (stats.getWeekStart() == null || weekStart.isAfter(stats.getWeekStart())) {
+            stats.setWeekStart(weekStart);
+            stats.setWeekScore(scoreSum);
+        } else if (weekStart.equals(stats.getWeekStart())) {
+            stats.setWeekScore(stats.getWeekScore() + scoreSum);
+        }
+
+        LocalDate lastPlayed = stats.getLastPlayed();
+        if (lastPlayed == null || day.isAfter(lastPlayed)) {
+            stats.setStreak(lastPlayed != null && day.equals(lastPlayed.plusDays(1)) ? stats.getStreak() + 1 : 1);
+            stats.setLastPlayed(day);
+        }
+    }
+
+    /**
+     * This method converts statistics into the response, dropping the week score and streak if they are outdated.
+     *
+     * @param stats Statistics of the player
+     * @param today Current day
+     * @return Statistics as they are on the given day
+     */
+    static PlayerStatsDao toDao(PlayerStats stats, LocalDate today) {
+        LocalDate currentWeekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        long weekScore = currentWeekStart.equals(stats.getWeekStart()) ? stats.getWeekScore() : 0;
+        LocalDate lastPlayed = stats.getLastPlayed();
+        int currentStreak = lastPlayed != null && !lastPlayed.isBefore(today.minusDays(1)) ? stats.getStreak() : 0;
+        double averageScore = stats.getGamesPlayed() == 0 ? 0 : stats.getTotalScore() / (double) stats.getGamesPlayed();
+        return new PlayerStatsDao(stats.getUsername(), stats.getGamesPlayed(), stats.getBestScore(), averageScore,
+                weekScore, currentStreak);
+    }
+
+    private static void reset(PlayerStats stats) {
+        stats.setGamesPlayed(0);
+        stats.setTotalScore(0);
+        stats.setBestScore(0);
+        stats.setWeekStart(null);
+        stats.setWeekScore(0);
+        stats.setLastPlayed(null);
+        stats.setStreak(0);
+    }
+}
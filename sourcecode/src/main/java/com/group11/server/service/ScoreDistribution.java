@@ -0,0 +1,191 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.ScoreBucketDao;
+import com.group11.server.dao.ScoreHistogramDao;
+import com.group11.server.dao.ScorePercentileDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.repository.GameRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Distribution of game scores over the weekly, monthly and all-time windows, kept as HdrHistograms.
+ * Every day of the last 30 days has its own histogram, and the window histograms are their running sums,
+ * so a day leaving a window is subtracted once instead of summing the remaining days on every request.
+ * Histograms keep 3 significant digits: scores are counted in buckets no wider than 0.1% of their value,
+ * so a percentile can only be off by the games whose score is within 0.1% of the looked up score.
+ * Lookups cost the number of buckets, which depends on the highest score and not on the number of games.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class ScoreDistribution implements SmartInitializingSingleton {
+
+    public static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * Upper bound of the bucket count of a histogram response
+     */
+    public static final int MAX_BUCKETS = 100;
+
+    private static final int WEEK_DAYS = 7;
+    private static final int MONTH_DAYS = 30;
+
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GameChangeLog gameChangeLog;
+
+    /**
+     * Change log position of the load, games of the changes it covers are loaded already
+     */
+    private volatile GameChangeLog.Position loadedPosition;
+
+    private final NavigableMap<LocalDate, Histogram> days = new TreeMap<>();
+    private final Histogram weekly = newHistogram();
+    private final Histogram monthly = newHistogram();
+    private final Histogram allTime = newHistogram();
+    private LocalDate today = LocalDate.now();
+
+    public ScoreDistribution(GameRepository gameRepository, PlatformTransactionManager transactionManager,
+                             GameChangeLog gameChangeLog) {
+        this.gameRepository = gameRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.gameChangeLog = gameChangeLog;
+    }
+
+    /**
+     * This method loads the scores of all games. It runs after all singletons are created and
+     * before the web server starts, so no game can be saved by this instance between the load and the first event.
+     * Games of other instances read from the change log are skipped when the load already saw them.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            loadedPosition = gameChangeLog.readPosition();
+            try (Stream<Object[]> rows = gameRepository.streamScoreCounts()) {
+                rows.forEach(row -> record((LocalDate) row[0], (Integer) row[1], ((Number) row[2]).longValue()));
+            }
+        });
+        log.info("Loaded {} scores into the score distribution", allTime.getTotalCount());
+    }
+
+    /**
+     * This method adds the score of a saved game, or removes it when the game is retracted.
+     *
+     * @param event Event of the saved game
+     */
+    @EventListener
+    public void onGameRecorded(GameRecordedEvent event) {
+        if (loadedPosition != null && loadedPosition.covers(event.getChangeId())) {
+            return;
+        }
+        record(event.getEndTime(), event.getScore(), event.isRetracted() ? -1 : 1);
+    }
+
+    /**
+     * This method finds which percentile of the games in a window a score is at.
+     *
+     * @param score  Score to look up
+     * @param period Time window, null for all time
+     * @return Percentage of games with the same or a lower score
+     */
+    public synchronized ScorePercentileDao getPercentile(int score, LeaderboardPeriod period) {
+        Histogram histogram = window(period);
+        long games = histogram.getTotalCount();
+        double percentile = games == 0 || score < 0 ? 0 : histogram.getPercentileAtOrBelowValue(score);
+        return new ScorePercentileDao(score, periodName(period), games, percentile);
+    }
+
+    /**
+     * This method counts the games of a window in equal width score buckets.
+     *
+     * @param period  Time window, null for all time
+     * @param buckets Number of buckets between zero and the highest score, at most MAX_BUCKETS
+     * @return Number of games per bucket
+     */
+    public synchronized ScoreHistogramDao getHistogram(LeaderboardPeriod period, int buckets) {
+        Histogram histogram = window(period);
+        List<ScoreBucketDao> bucketList = new ArrayList<>();
+        if (histogram.getTotalCount() > 0) {
+            long maxScore = histogram.highestEquivalentValue(histogram.getMaxValue());
+            long width = Math.max(1, (maxScore + buckets) / buckets);
+            long from = 0;
+            for (HistogramIterationValue value : histogram.linearBucketValues(width)) {
+                bucketList.add(new ScoreBucketDao(from, value.getValueIteratedTo(), value.getCountAddedInThisIterationStep()));
+                from = value.getValueIteratedTo() + 1;
+            }
+        }
+        return new ScoreHistogramDao(periodName(period), histogram.getTotalCount(), bucketList);
+    }
+
+    private synchronized void record(LocalDate endTime, Integer score, long count) {
+        if (score == null) {
+            return;
+        }
+        allTime.recordValueWithCount(score, count);
+        if (endTime == null) {
+            return;
+        }
+        roll();
+        if (endTime.isAfter(today) || !endTime.isAfter(today.minusDays(MONTH_DAYS))) {
+            return;
+        }
+        days.computeIfAbsent(endTime, day -> newHistogram()).recordValueWithCount(score, count);
+        monthly.recordValueWithCount(score, count);
+        if (endTime.isAfter(today.minusDays(WEEK_DAYS))) {
+            weekly.recordValueWithCount(score, count);
+        }
+    }
+
+    private Histogram window(LeaderboardPeriod period) {
+        roll();
+        if (period == null) return allTime;
+        return period == LeaderboardPeriod.WEEKLY ? weekly : monthly;
+    }
+
+    /**
+     * This method moves the windows to the current day, subtracting the days that left them.
+     */
+    private void roll() {
+        LocalDate now = LocalDate.now();
+        while (today.isBefore(now)) {
+            today = today.plusDays(1);
+            Histogram leftWeek = days.get(today.minusDays(WEEK_DAYS));
+            if (leftWeek != null) {
+                weekly.subtract(leftWeek);
+            }
+            Histogram leftMonth = days.remove(today.minusDays(MONTH_DAYS));
+            if (leftMonth != null) {
+                monthly.subtract(leftMonth);
+            }
+        }
+    }
+
+    private static String periodName(LeaderboardPeriod period) {
+        return period == null ? "all_time" : period.name().toLowerCase();
+    }
+
+    private static Histogram newHistogram() {
+        Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+        histogram.setAutoResize(true);
+        return histogram;
+    }
+}
@@ -0,0 +1,343 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.ScoreValidationReplayDao;
+import com.group11.server.event.GameSubmittedEvent;
+import com.group11.server.model.Game;
+import com.group11.server.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks saved games for implausible scores without delaying their submission.
+ * Games are queued after their transaction commits and checked by a pool of workers against rolling statistics
+ * of their player: a score far above the player's exponentially weighted mean (z-score), more games per minute than
+ * a player can finish, or a score above the absolute maximum flags the game as suspicious. Flagged games are
+ * retracted from leaderboards and player statistics and do not move the player's rolling statistics.
+ * Players are partitioned over the workers by username, so every worker owns the statistics of its players and
+ * checks their games in submission order without locking. Queues are bounded: when a queue is full the game is
+ * accepted unchecked and counted as dropped, and a replay over the game table can check it later.
+ * A replay has its own queues, which workers only take from while no live game waits, so a running replay
+ * neither takes the place of live games in their queues nor delays their checks by more than one game.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class ScoreValidationPipeline {
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int REPLAY_PAGE_SIZE = 1000;
+
+    private final GameService gameService;
+    private final GameRepository gameRepository;
+    private final boolean enabled;
+    private final double zThreshold;
+    private final int minGames;
+    private final double alpha;
+    private final int maxGamesPerMinute;
+    private final int maxScore;
+    private final int trackedPlayersPerWorker;
+
+    private final List<BlockingQueue<Task>> queues = new ArrayList<>();
+    private final List<BlockingQueue<Task>> replayQueues = new ArrayList<>();
+
+    /**
+     * Number of queued live and replay games of each worker, which the worker waits on
+     */
+    private final List<Semaphore> queuedTasks = new ArrayList<>();
+    private final List<Map<String, PlayerScoreStats>> liveStats = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter dropped;
+    private final Timer checkTimer;
+
+    public ScoreValidationPipeline(GameService gameService,
+                                   GameRepository gameRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${score-validation.enabled:true}") boolean enabled,
+                                   @Value("${score-validation.workers:2}") int workerCount,
+                                   @Value("${score-validation.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${score-validation.z-threshold:6}") double zThreshold,
+                                   @Value("${score-validation.min-games:20}") int minGames,
+                                   @Value("${score-validation.window-games:50}") int windowGames,
+                                   @Value("${score-validation.max-games-per-minute:30}") int maxGamesPerMinute,
+                                   @Value("${score-validation.max-score:2147483647}") int maxScore,
+                                   @Value("${score-validation.tracked-players:100000}") int trackedPlayers) {
+        this.gameService = gameService;
+        this.gameRepository = gameRepository;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.zThreshold = zThreshold;
+        this.minGames = minGames;
+        this.alpha = 2.0 / (windowGames + 1);
+        this.maxGamesPerMinute = maxGamesPerMinute;
+        this.maxScore = maxScore;
+        this.trackedPlayersPerWorker = Math.max(1, trackedPlayers / workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Task> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity / workerCount));
+            queues.add(queue);
+            replayQueues.add(new ArrayBlockingQueue<>(Math.max(1, queueCapacity / workerCount)));
+            queuedTasks.add(new Semaphore(0));
+            liveStats.add(newLiveStats());
+            Gauge.builder("score.validation.queue.size", queue, BlockingQueue::size)
+                    .tag("worker", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.dropped = meterRegistry.counter("score.validation.dropped");
+        this.checkTimer = meterRegistry.timer("score.validation.check");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        for (int i = 0; i < queues.size(); i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> work(worker), "score-validation-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * This method queues a game submitted to this instance for validation. It never blocks the submitting thread.
+     *
+     * @param event Event of the saved game
+     */
+    @EventListener
+    public void onGameSubmitted(GameSubmittedEvent event) {
+        if (!enabled) return;
+        int worker = partition(event.getUsername());
+        Task task = new Task(event.getGameId(), event.getUsername(), event.getScore(), System.currentTimeMillis(),
+                liveStats.get(worker), null);
+        if (queues.get(worker).offer(task)) {
+            queuedTasks.get(worker).release();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * This method checks every game in the game table again, in ID order, with fresh player statistics.
+     * Rate checks are skipped, since submission times of old games are not stored. Games flagged already are skipped.
+     * Reading waits for the replay queues, so a replay never drops games. Live games keep their own queues and are
+     * checked before replayed games meanwhile.
+     *
+     * @param dryRun Count suspicious games without flagging them
+     * @return Number of checked and suspicious games
+     * @throws Exception if validation is disabled or a replay is already running
+     */
+    public ScoreValidationReplayDao replay(boolean dryRun) throws Exception {
+        if (!enabled) throw new Exception("Score validation is disabled.");
+        if (!replaying.compareAndSet(false, true)) throw new Exception("Score validation replay is already running.");
+        try {
+            ReplayRun run = new ReplayRun(queues.size(), dryRun);
+            long afterId = 0;
+            List<Game> games;
+            while (!(games = gameRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REPLAY_PAGE_SIZE))).isEmpty()) {
+                for (Game game : games) {
+                    if (Boolean.TRUE.equals(game.getSuspicious()) || game.getScore() == null) continue;
+                    int worker = partition(game.getUsername());
+                    run.remaining.incrementAndGet();
+                    replayQueues.get(worker).put(new Task(game.getId(), game.getUsername(), game.getScore(), 0,
+                            run.stats.get(worker), run));
+                    queuedTasks.get(worker).release();
+                }
+                afterId = games.get(games.size() - 1).getId();
+            }
+            run.readDone = true;
+            if (run.remaining.get() == 0) run.done.countDown();
+            run.done.await();
+            log.info("Score validation replay checked {} games and found {} suspicious", run.checked.get(), run.flagged.get());
+            return new ScoreValidationReplayDao(run.checked.get(), run.flagged.get(), dryRun);
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    private void work(int worker) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                queuedTasks.get(worker).acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Every permit stands for one queued game, live games are taken first
+            Task liveTask = queues.get(worker).poll();
+            Task task = liveTask != null ? liveTask : replayQueues.get(worker).poll();
+            try {
+                boolean suspicious = checkTimer.record(() -> check(task));
+                String mode = task.run == null ? "live" : "replay";
+                meterRegistry.counter("score.validation.games", "mode", mode, "outcome", suspicious ? "flagged" : "accepted").increment();
+                if (suspicious) {
+                    if (task.run != null) task.run.flagged.incrementAndGet();
+                    if (task.run == null || !task.run.dryRun) {
+                        gameService.retractGame(task.gameId);
+                        log.info("Flagged game {} of {} with score {} as suspicious", task.gameId, task.username, task.score);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Score validation of game {} failed", task.gameId, e);
+            } finally {
+                if (task.run != null) task.run.finish();
+            }
+        }
+    }
+
+    /**
+     * This method checks a game against the statistics of its player and adds it to them if it is plausible.
+     *
+     * @param task Queued game
+     * @return true if the game is suspicious
+     */
+    private boolean check(Task task) {
+        PlayerScoreStats stats = task.stats.computeIfAbsent(task.username, username -> new PlayerScoreStats(maxGamesPerMinute));
+        boolean rateExceeded = task.run == null && stats.recordSubmission(task.submittedMillis);
+        boolean suspicious = task.score > maxScore || rateExceeded || stats.isOutlier(task.score, minGames, zThreshold);
+        if (!suspicious) {
+            stats.add(task.score, alpha);
+        }
+        return suspicious;
+    }
+
+    private int partition(String username) {
+        return Math.floorMod(username.hashCode(), queues.size());
+    }
+
+    private Map<String, PlayerScoreStats> newLiveStats() {
+        // Least recently checked players are forgotten first, and start over with their next games
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PlayerScoreStats> eldest) {
+                return size() > trackedPlayersPerWorker;
+            }
+        };
+    }
+
+    /**
+     * Game waiting for validation, with the player statistics of the run it belongs to
+     */
+    private static final class Task {
+        private final Long gameId;
+        private final String username;
+        private final int score;
+        private final long submittedMillis;
+        private final Map<String, PlayerScoreStats> stats;
+        private final ReplayRun run;
+
+        private Task(Long gameId, String username, int score, long submittedMillis,
+                     Map<String, PlayerScoreStats> stats, ReplayRun run) {
+            this.gameId = gameId;
+            this.username = username;
+            this.score = score;
+            this.submittedMillis = submittedMillis;
+            this.stats = stats;
+            this.run = run;
+        }
+    }
+
+    /**
+     * Progress of a replay. Each worker only touches the statistics map of its own partition.
+     */
+    private static final class ReplayRun {
+        private final List<Map<String, PlayerScoreStats>> stats = new ArrayList<>();
+        private final boolean dryRun;
+        private final AtomicLong remaining = new AtomicLong();
+        private final AtomicLong checked = new AtomicLong();
+        private final AtomicLong flagged = new AtomicLong();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean readDone;
+
+        private ReplayRun(int workers, boolean dryRun) {
+            this.dryRun = dryRun;
+            for (int i = 0; i < workers; i++) {
+                stats.add(new HashMap<>());
+            }
+        }
+
+        private void finish() {
+            checked.incrementAndGet();
+            if (remaining.decrementAndGet() == 0 && readDone) {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Exponentially weighted mean and variance of a player's accepted scores, and times of the last submissions
+     */
+    static final class PlayerScoreStats {
+        private long games;
+        private double mean;
+        private double variance;
+        private final long[] submissions;
+        private int next;
+        private long submissionCount;
+
+        PlayerScoreStats(int maxGamesPerMinute) {
+            this.submissions = new long[Math.max(1, maxGamesPerMinute)];
+        }
+
+        /**
+         * @return true if the submission makes more games in the last minute than allowed
+         */
+        boolean recordSubmission(long millis) {
+            boolean exceeded = submissionCount >= submissions.length && millis - submissions[next] < MINUTE_MILLIS;
+            submissions[next] = millis;
+            next = (next + 1) % submissions.length;
+            submissionCount++;
+            return exceeded;
+        }
+
+        /**
+         * @return true if the score is more than the threshold standard deviations above the mean.
+         * The deviation is at least 1, so players who always score the same are not flagged for scoring one more.
+         */
+        boolean isOutlier(int score, int minGames, double zThreshold) {
+            if (games < minGames) return false;
+            double deviation = Math.max(1, Math.sqrt(variance));
+            return (score - mean) / deviation > zThreshold;
+        }
+
+        void add(int score, double alpha) {
+            games++;
+            if (games == 1) {
+                mean = score;
+                return;
+            }
+            double difference = score - mean;
+            double increment = alpha * difference;
+            mean += increment;
+            variance = (1 - alpha) * (variance + difference * increment);
+        }
+    }
+}
@@ -2,24 +2,44 @@ package com.group11.server.service;
 
 import com.group11.server.model.Player;
 import com.group11.server.repository.PlayerRepository;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
-@AllArgsConstructor
 public class UsersDetailsService implements UserDetailsService {
 
+    /**
+     * Authority of the players allowed to run admin operations
+     */
+    public static final String ADMIN_AUTHORITY = "ADMIN";
+
     private final PlayerRepository playerRepository;
 
+    /**
+     * Usernames of the players that get the admin authority
+     */
+    private final Set<String> adminUsernames;
+
+    public UsersDetailsService(PlayerRepository playerRepository,
+                               @Value("${security.admin-usernames:}") Set<String> adminUsernames) {
+        this.playerRepository = playerRepository;
+        this.adminUsernames = adminUsernames;
+    }
+
     /**
      * This method overrides the loadByUsername function to connect project's database to Spring Security user database.
      * It loads UserDetails in Spring Security User Database if user is registered in project's database.
+     * Players listed in security.admin-usernames get the admin authority.
      *
      * @param username Name of the player
      * @return UserDetails of the player with given username
@@ -31,7 +51,11 @@ public class UsersDetailsService implements UserDetailsService {
         Optional<Player> optPlayer = playerRepository.findByUsername(username);
         if (optPlayer.isPresent()) {
             Player player = optPlayer.get();
-            return new org.springframework.security.core.userdetails.User(player.getUsername(), player.getPassword(), new ArrayList<>());
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            if (adminUsernames.contains(player.getUsername())) {
+                authorities.add(new SimpleGrantedAuthority(ADMIN_AUTHORITY));
+            }
+            return new org.springframework.security.core.userdetails.User(player.getUsername(), player.getPassword(), authorities);
         } else {
             throw new UsernameNotFoundException("Username or password is incorrect");
         }
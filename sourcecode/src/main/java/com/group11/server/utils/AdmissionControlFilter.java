@@ -0,0 +1,275 @@
+package com.group11.server.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.R2dbcException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control of the endpoints that slow down with the database. Leaderboard reads and logins each have
+ * an adaptive limit of concurrent requests. A request over its limit waits at most max-wait-millis for a slot
+ * and is then answered 503 with Retry-After, so when the database slows down these requests fail fast instead of
+ * holding Tomcat threads, and game submissions, which are not limited, keep their threads.
+ * Limits follow AIMD: every request answered within the latency threshold while the endpoint is at least half
+ * busy adds 1/limit, so a limit grows by about one per round trip, and a slow or failed request multiplies it
+ * by the backoff ratio, at most once per threshold interval so one slow burst counts as one decrease.
+ * A request failed if it threw a database or timeout exception, or answered 5xx without an exception.
+ * Server-sent event streams are not limited, since they hold their request for as long as the client listens.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(value = "admission-control.enabled", havingValue = "true")
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String LEADERBOARD = "leaderboard";
+    private static final String LOGIN = "login";
+
+    private final Map<String, AdaptiveLimit> limits = new LinkedHashMap<>();
+    private final long maxWaitMillis;
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Value("${admission-control.max-wait-millis:50}") long maxWaitMillis,
+                                  @Value("${admission-control.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${admission-control.leaderboard.initial-limit:20}") int leaderboardInitialLimit,
+                                  @Value("${admission-control.leaderboard.max-limit:100}") int leaderboardMaxLimit,
+                                  @Value("${admission-control.leaderboard.latency-threshold-millis:250}") long leaderboardThresholdMillis,
+                                  @Value("${admission-control.login.initial-limit:10}") int loginInitialLimit,
+                                  @Value("${admission-control.login.max-limit:50}") int loginMaxLimit,
+                                  @Value("${admission-control.login.latency-threshold-millis:500}") long loginThresholdMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        limits.put(LEADERBOARD, new AdaptiveLimit(LEADERBOARD, leaderboardInitialLimit, leaderboardMaxLimit,
+                TimeUnit.MILLISECONDS.toNanos(leaderboardThresholdMillis), backoffRatio, meterRegistry));
+        limits.put(LOGIN, new AdaptiveLimit(LOGIN, loginInitialLimit, loginMaxLimit,
+                TimeUnit.MILLISECONDS.toNanos(loginThresholdMillis), backoffRatio, meterRegistry));
+    }
+
+    /**
+     * This method admits a request of a limited endpoint or answers it with 503 right away.
+     * The slot is given back when the response is complete, which is after the async part of streaming
+     * and reactive responses, or when the async part times out or fails. Exceptions of the request count as
+     * failures only if they are server side, so requests rejected for invalid parameters do not lower the limit.
+     *
+     * @param request     the HTTP request received
+     * @param response    the HTTP response
+     * @param filterChain filter chain for current configuration
+     * @throws IOException      *
+     * @throws ServletException *
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        AdaptiveLimit limit = limits.get(endpoint(request.getRequestURI()));
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.acquire(maxWaitMillis)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        Permit permit = new Permit(limit, request, response);
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+                return;
+            }
+            permit.release(response.getStatus() >= 500);
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            permit.release(isServerFailure(e));
+            throw e;
+        }
+    }
+
+    /**
+     * This method tells whether an exception of a request means the server is struggling, which is when it or one of
+     * its causes is a database error or a timeout. Other exceptions, like the ones thrown for invalid parameters
+     * or unknown players, are caused by the request itself.
+     *
+     * @param exception Exception thrown by the request, may be null
+     * @return true if the exception is a server side failure
+     */
+    static boolean isServerFailure(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessException || cause instanceof TransactionException
+                    || cause instanceof SQLException || cause instanceof R2dbcException
+                    || cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param uri Request path
+     * @return Name of the limited endpoint group of the path, or null if it is not limited
+     */
+    static String endpoint(String uri) {
+        if ((uri.startsWith("/api/leaderboard") || uri.startsWith("/api/reactive/leaderboard")) && !uri.endsWith("/stream")) {
+            return LEADERBOARD;
+        }
+        if (uri.equals("/api/login") || uri.equals("/api/register")) {
+            return LOGIN;
+        }
+        return null;
+    }
+
+    /**
+     * Slot of one admitted request, given back exactly once whichever of completion, timeout or error comes first
+     */
+    private static final class Permit implements AsyncListener {
+        private final AdaptiveLimit limit;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(AdaptiveLimit limit, HttpServletRequest request, HttpServletResponse response) {
+            this.limit = limit;
+            this.request = request;
+            this.response = response;
+        }
+
+        private void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - start, failed);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            Object exception = request.getAttribute(RequestDispatcher.ERROR_EXCEPTION);
+            release(exception instanceof Throwable ? isServerFailure((Throwable) exception) : response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(isServerFailure(event.getThrowable()));
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Concurrency limit of one endpoint group with its in-flight count and metrics
+     */
+    static final class AdaptiveLimit {
+        private final String endpoint;
+        private final int maxLimit;
+        private final long latencyThresholdNanos;
+        private final double backoffRatio;
+        private final Timer queueTimer;
+        private final Counter rejected;
+
+        private double limit;
+        private int inFlight;
+        private long lastDecreaseNanos;
+
+        AdaptiveLimit(String endpoint, int initialLimit, int maxLimit, long latencyThresholdNanos,
+                              double backoffRatio, MeterRegistry meterRegistry) {
+            this.endpoint = endpoint;
+            this.maxLimit = Math.max(1, maxLimit);
+            this.limit = Math.min(this.maxLimit, Math.max(1, initialLimit));
+            this.latencyThresholdNanos = latencyThresholdNanos;
+            this.backoffRatio = backoffRatio;
+            // The first slow response may lower the limit right away
+            this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos - 1;
+            this.queueTimer = meterRegistry.timer("admission.queue", "endpoint", endpoint);
+            this.rejected = meterRegistry.counter("admission.rejected", "endpoint", endpoint);
+            Gauge.builder("admission.limit", this, AdaptiveLimit::getLimit).tag("endpoint", endpoint).register(meterRegistry);
+            Gauge.builder("admission.in_flight", this, AdaptiveLimit::getInFlight).tag("endpoint", endpoint).register(meterRegistry);
+        }
+
+        /**
+         * @return true if the request may run, false if no slot got free within the wait
+         */
+        synchronized boolean acquire(long maxWaitMillis) {
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (inFlight >= (int) limit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    return false;
+                }
+            }
+            inFlight++;
+            queueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        }
+
+        void release(long latencyNanos, boolean failed) {
+            release(latencyNanos, failed, System.nanoTime());
+        }
+
+        /**
+         * @param latencyNanos Time the request took
+         * @param failed       true if the request failed on the server side
+         * @param now          Current value of System.nanoTime()
+         */
+        synchronized void release(long latencyNanos, boolean failed, long now) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                if (now - lastDecreaseNanos > latencyThresholdNanos) {
+                    limit = Math.max(1, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                    log.debug("Lowered {} concurrency limit to {}", endpoint, (int) limit);
+                }
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+            notify();
+        }
+
+        synchronized double getLimit() {
+            return limit;
+        }
+
+        synchronized double getInFlight() {
+            return inFlight;
+        }
+    }
+}
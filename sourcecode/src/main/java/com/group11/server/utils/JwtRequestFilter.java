@@ -1,6 +1,8 @@
 package com.group11.server.utils;
 
 import com.group11.server.service.UsersDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -24,10 +26,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtTokenUtil;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
      * This method overrides doFilterInternal method to create JwtResponse filter to check Jwt Token for authorization
      * Adds created JwtResponse filter to filterChain.
      * If Jwt is valid it sets the SecurityContext to allow the requests through the filter
+     * Time spent verifying a token is recorded in the jwt.verify timer.
      *
      * @param httpServletRequest  the HTTP request received
      * @param httpServletResponse the HTTP response
@@ -43,17 +49,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         String jwt = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtTokenUtil.extractUsername(jwt);
-        }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long serverTimingStart = ServerTiming.start();
+            try {
+                jwt = authorizationHeader.substring(7);
+                username = jwtTokenUtil.extractUsername(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.usersDetailsService.loadUserByUsername(username);
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = this.usersDetailsService.loadUserByUsername(username);
+                    if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+                        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
+                        usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
+                        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                    }
+                }
+            } finally {
+                // Tokens that fail to parse or verify are timed as well
+                sample.stop(meterRegistry.timer("jwt.verify"));
+                ServerTiming.stop(ServerTiming.AUTH, serverTimingStart);
             }
         }
         filterChain.doFilter(httpServletRequest, httpServletResponse);
@@ -0,0 +1,126 @@
+package com.group11.server.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request scoped recorder of where the time of a request went, reported in the Server-Timing response header.
+ * Code marks a phase with {@link #start()} and {@link #stop(String, long)}. Phases may overlap, e.g. "auth"
+ * includes the "db" lookup of the user. While recording is disabled or no request is being recorded on the
+ * current thread, marking a phase costs a single volatile read.
+ */
+public final class ServerTiming {
+
+    public static final String AUTH = "auth";
+    public static final String DB = "db";
+    public static final String HASH = "hash";
+    public static final String SERIALIZE = "serialize";
+
+    private static volatile boolean enabled;
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Total duration and count of every phase, in the order phases were first seen
+     */
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    static void setEnabled(boolean enabled) {
+        ServerTiming.enabled = enabled;
+    }
+
+    /**
+     * This method starts recording a request on the current thread.
+     *
+     * @return Recorder of the request
+     */
+    static ServerTiming begin() {
+        ServerTiming serverTiming = new ServerTiming();
+        CURRENT.set(serverTiming);
+        return serverTiming;
+    }
+
+    /**
+     * This method stops recording on the current thread. The recorder itself can still be read.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * This method marks the start of a phase.
+     *
+     * @return Start time to pass to stop, or 0 if nothing is recorded
+     */
+    public static long start() {
+        if (!enabled || CURRENT.get() == null) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * This method marks the end of a phase and adds its duration to the current request.
+     *
+     * @param phase      Name of the phase
+     * @param startNanos Value returned by start
+     */
+    public static void stop(String phase, long startNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+        ServerTiming serverTiming = CURRENT.get();
+        if (serverTiming != null) {
+            serverTiming.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    synchronized void add(String phase, long nanos) {
+        long[] phaseTotal = phases.computeIfAbsent(phase, key -> new long[2]);
+        phaseTotal[0] += nanos;
+        phaseTotal[1]++;
+    }
+
+    /**
+     * @return Time since the request started in nanoseconds
+     */
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * This method formats the recorded phases and the total time as a Server-Timing header value,
+     * e.g. auth;dur=1.20, db;dur=4.51;desc="3 calls", total;dur=7.03
+     *
+     * @return Header value
+     */
+    synchronized String toHeaderValue() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : phases.entrySet()) {
+            header.append(entry.getKey()).append(";dur=").append(millis(entry.getValue()[0]));
+            if (entry.getValue()[1] > 1) {
+                header.append(";desc=\"").append(entry.getValue()[1]).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+    }
+
+    /**
+     * This method formats the recorded phases as key=value pairs for logs, e.g. auth=1.20 db=4.51 db_calls=3
+     *
+     * @return Log fields
+     */
+    synchronized String toLogFields() {
+        StringBuilder fields = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : phases.entrySet()) {
+            fields.append(' ').append(entry.getKey()).append('=').append(millis(entry.getValue()[0]))
+                    .append(' ').append(entry.getKey()).append("_calls=").append(entry.getValue()[1]);
+        }
+        return fields.toString().trim();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.group11.server.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(value = "server-timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final boolean headerEnabled;
+    private final long slowRequestThresholdNanos;
+
+    public ServerTimingFilter(@Value("${server-timing.header-enabled:true}") boolean headerEnabled,
+                              @Value("${server-timing.slow-request-threshold-millis:0}") long slowRequestThresholdMillis) {
+        this.headerEnabled = headerEnabled;
+        this.slowRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMillis);
+        ServerTiming.setEnabled(true);
+    }
+
+    /**
+     * This method records the phases of a request before Spring Security runs, so authentication is included.
+     * The Server-Timing header is added just before the response is committed, since headers cannot be
+     * changed afterwards. Requests slower than the threshold are logged with all their phases.
+     *
+     * @param request     the HTTP request received
+     * @param response    the HTTP response
+     * @param filterChain filter chain for current configuration
+     * @throws IOException      *
+     * @throws ServletException *
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ServerTiming serverTiming = ServerTiming.begin();
+        HttpServletResponse timedResponse = response;
+        if (headerEnabled) {
+            timedResponse = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    ServerTiming.stop(ServerTiming.SERIALIZE, ServerTimingResponseBodyAdvice.takeSerializeStart(request));
+                    response.setHeader("Server-Timing", serverTiming.toHeaderValue());
+                }
+            };
+        }
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            if (headerEnabled && !response.isCommitted() && !request.isAsyncStarted()) {
+                ServerTiming.stop(ServerTiming.SERIALIZE, ServerTimingResponseBodyAdvice.takeSerializeStart(request));
+                response.setHeader("Server-Timing", serverTiming.toHeaderValue());
+            }
+            ServerTiming.end();
+            long elapsedNanos = serverTiming.elapsedNanos();
+            if (slowRequestThresholdNanos > 0 && elapsedNanos >= slowRequestThresholdNanos && !request.isAsyncStarted()) {
+                log.warn("slow request method={} uri={} status={} total={} {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), String.format("%.2f", elapsedNanos / 1_000_000.0), serverTiming.toLogFields());
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.group11.server.utils;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records every call of a Spring Data repository as the "db" phase of the current request.
+ * The aspect only exists while Server-Timing is enabled, so repositories are not proxied for it otherwise.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(value = "server-timing.enabled", havingValue = "true")
+public class ServerTimingRepositoryAspect {
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object recordDatabasePhase(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = ServerTiming.start();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ServerTiming.stop(ServerTiming.DB, start);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.group11.server.utils;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Marks the start of the "serialize" phase right before a response body is handed to its message converter.
+ * The phase ends when the converter flushes and so commits the response, see ServerTimingFilter.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(value = "server-timing.enabled", havingValue = "true")
+public class ServerTimingResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String SERIALIZE_START_ATTRIBUTE = ServerTimingResponseBodyAdvice.class.getName() + ".serializeStart";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        long start = ServerTiming.start();
+        if (start != 0 && request instanceof ServletServerHttpRequest) {
+            ((ServletServerHttpRequest) request).getServletRequest().setAttribute(SERIALIZE_START_ATTRIBUTE, start);
+        }
+        return body;
+    }
+
+    /**
+     * This method returns the start of the serialize phase of a request once.
+     *
+     * @param request Request whose body is being written
+     * @return Start time to pass to ServerTiming.stop, or 0 if serialization has not started
+     */
+    static long takeSerializeStart(HttpServletRequest request) {
+        Object start = request.getAttribute(SERIALIZE_START_ATTRIBUTE);
+        if (start == null) {
+            return 0;
+        }
+        request.removeAttribute(SERIALIZE_START_ATTRIBUTE);
+        return (Long) start;
+    }
+}
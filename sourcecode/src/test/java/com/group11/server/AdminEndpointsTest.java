@@ -0,0 +1,69 @@
+package com.group11.server;
+
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.UsersDetailsService;
+import com.group11.server.utils.JwtUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that admin operations are refused to players that are not listed as admins.
+ */
+public class AdminEndpointsTest {
+
+	private static ConfigurableApplicationContext context;
+	private static final HttpClient client = HttpClient.newHttpClient();
+	private static String adminToken;
+	private static String playerToken;
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("admin", "security.admin-usernames=boss");
+		PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+		playerRepository.save(new Player(null, "boss", "secret", "boss@test.com", null));
+		playerRepository.save(new Player(null, "someone", "secret", "someone@test.com", null));
+		UsersDetailsService usersDetailsService = context.getBean(UsersDetailsService.class);
+		JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+		adminToken = jwtUtil.generateToken(usersDetailsService.loadUserByUsername("boss"));
+		playerToken = jwtUtil.generateToken(usersDetailsService.loadUserByUsername("someone"));
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void playerCannotRunAdminOperationsTest() throws Exception {
+		assertEquals(403, post("/api/player/stats/rebuild", playerToken));
+		assertEquals(403, post("/api/scores/validation/replay?dryRun=true", playerToken));
+		assertEquals(403, post("/api/scores/validation/replay?dryRun=true", null));
+	}
+
+	@Test
+	public void adminCanRunAdminOperationsTest() throws Exception {
+		assertEquals(200, post("/api/scores/validation/replay?dryRun=true", adminToken));
+		assertEquals(202, post("/api/player/stats/rebuild", adminToken));
+	}
+
+	private static int post(String path, String token) throws Exception {
+		int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.POST(HttpRequest.BodyPublishers.noBody());
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
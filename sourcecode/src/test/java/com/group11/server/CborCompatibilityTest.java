@@ -0,0 +1,86 @@
+package com.group11.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group11.server.dao.GameDao;
+import com.group11.server.dao.PlayerDao;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CborCompatibilityTest {
+
+	private final ObjectMapper cborObjectMapper = CborConfig.cborObjectMapper(new Jackson2ObjectMapperBuilder());
+	private final ObjectMapper jsonObjectMapper = new Jackson2ObjectMapperBuilder().build();
+
+	@Test
+	public void leaderboardRoundTripTest() throws Exception {
+		List<GameDao> gameDaoList = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			GameDao gameDao = new GameDao();
+			gameDao.setUsername("player" + i);
+			gameDao.setScore(100_000 - i);
+			gameDaoList.add(gameDao);
+		}
+
+		byte[] cbor = cborObjectMapper.writeValueAsBytes(gameDaoList);
+		List<GameDao> decoded = cborObjectMapper.readValue(cbor, new TypeReference<List<GameDao>>() {});
+		assertEquals(gameDaoList.size(), decoded.size());
+		for (int i = 0; i < gameDaoList.size(); i++) {
+			assertEquals(gameDaoList.get(i).getUsername(), decoded.get(i).getUsername());
+			assertEquals(gameDaoList.get(i).getScore(), decoded.get(i).getScore());
+		}
+		assertTrue(cbor.length < jsonObjectMapper.writeValueAsBytes(gameDaoList).length);
+	}
+
+	@Test
+	public void playerDirectoryRoundTripTest() throws Exception {
+		List<PlayerDao> playerDaoList = List.of(new PlayerDao(1L, "alice"), new PlayerDao(2L, "bob"));
+
+		byte[] cbor = cborObjectMapper.writeValueAsBytes(playerDaoList);
+		List<PlayerDao> decoded = cborObjectMapper.readValue(cbor, new TypeReference<List<PlayerDao>>() {});
+		assertEquals(2, decoded.size());
+		assertEquals(Long.valueOf(2L), decoded.get(1).getId());
+		assertEquals("bob", decoded.get(1).getUsername());
+	}
+
+	@Test
+	public void decodeDefiniteLengthLeaderboardTest() throws Exception {
+		// [{"username": "alice", "score": 50, "rank": 1}] as another CBOR encoder writes it:
+		// definite length containers and a key the server does not know yet
+		byte[] cbor = {
+				(byte) 0x81, (byte) 0xA3,
+				0x68, 'u', 's', 'e', 'r', 'n', 'a', 'm', 'e', 0x65, 'a', 'l', 'i', 'c', 'e',
+				0x65, 's', 'c', 'o', 'r', 'e', 0x18, 0x32,
+				0x64, 'r', 'a', 'n', 'k', 0x01
+		};
+
+		List<GameDao> decoded = cborObjectMapper.readValue(cbor, new TypeReference<List<GameDao>>() {});
+		assertEquals(1, decoded.size());
+		assertEquals("alice", decoded.get(0).getUsername());
+		assertEquals(Integer.valueOf(50), decoded.get(0).getScore());
+	}
+
+	@Test
+	public void encodeLeaderboardEntryTest() throws Exception {
+		GameDao gameDao = new GameDao();
+		gameDao.setUsername("alice");
+		gameDao.setScore(50);
+
+		// Field names and value types are the wire contract of schema/responses.cddl
+		byte[] expected = {
+				0x68, 'u', 's', 'e', 'r', 'n', 'a', 'm', 'e', 0x65, 'a', 'l', 'i', 'c', 'e',
+				0x65, 's', 'c', 'o', 'r', 'e', 0x18, 0x32
+		};
+		byte[] cbor = cborObjectMapper.writeValueAsBytes(gameDao);
+		byte[] fields = new byte[expected.length];
+		System.arraycopy(cbor, 1, fields, 0, fields.length);
+		assertArrayEquals(expected, fields);
+	}
+}
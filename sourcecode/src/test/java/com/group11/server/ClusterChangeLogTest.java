@@ -0,0 +1,174 @@
+package com.group11.server;
+
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.GameService;
+import com.group11.server.service.LeaderboardVersion;
+import com.group11.server.service.ScoreDistribution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs several instances in one JVM against one embedded database and checks that a game saved on any
+ * instance reaches the in-memory leaderboard state of every instance exactly once.
+ */
+public class ClusterChangeLogTest {
+
+	private static final int NODES = 3;
+	private static final long MAX_LAG_MILLIS = 5000;
+	private static final int BATCH_SIZE = 2;
+
+	private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+	private final List<AtomicInteger> receivedEvents = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < NODES; i++) {
+			startNode(i);
+		}
+	}
+
+	private ConfigurableApplicationContext startNode(int i) {
+		ConfigurableApplicationContext context = TestApplication.start("cluster",
+				"spring.jpa.hibernate.ddl-auto=" + (i == 0 ? "create" : "none"),
+				"leaderboard.snapshot.enabled=true",
+				"cluster.enabled=true",
+				"cluster.node-id=node" + i,
+				"cluster.change-log.poll-millis=50",
+				"cluster.change-log.batch-size=" + BATCH_SIZE);
+		AtomicInteger counter = new AtomicInteger();
+		context.addApplicationListener((ApplicationListener<ApplicationEvent>) event -> {
+			if (event instanceof PayloadApplicationEvent
+					&& ((PayloadApplicationEvent<?>) event).getPayload() instanceof GameRecordedEvent) {
+				counter.incrementAndGet();
+			}
+		});
+		contexts.add(context);
+		receivedEvents.add(counter);
+		return context;
+	}
+
+	@After
+	public void tearDown() {
+		contexts.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	public void gamesReachEveryNodeOnceTest() throws Exception {
+		Player player = contexts.get(0).getBean(PlayerRepository.class)
+				.save(new Player(null, "clusterPlayer", "password", "cluster@test.com", null));
+		List<String> eTagsBefore = new ArrayList<>();
+		for (ConfigurableApplicationContext context : contexts) {
+			eTagsBefore.add(context.getBean(LeaderboardVersion.class).getETag(LeaderboardPeriod.WEEKLY, 10));
+		}
+
+		int games = 0;
+		for (int round = 0; round < 4; round++) {
+			for (ConfigurableApplicationContext context : contexts) {
+				context.getBean(GameService.class).addGame(player.getId(), 10 + round);
+				games++;
+			}
+		}
+
+		long deadline = System.currentTimeMillis() + MAX_LAG_MILLIS;
+		while (System.currentTimeMillis() < deadline && !allReceived(games)) {
+			Thread.sleep(20);
+		}
+		// Give duplicates a chance to show up before counting
+		Thread.sleep(300);
+		for (int i = 0; i < NODES; i++) {
+			assertEquals("events received by node" + i, games, receivedEvents.get(i).get());
+			assertNotEquals(eTagsBefore.get(i),
+					contexts.get(i).getBean(LeaderboardVersion.class).getETag(LeaderboardPeriod.WEEKLY, 10));
+		}
+	}
+
+	@Test
+	public void changesBehindOpenTransactionArePublishedTest() throws Exception {
+		Player player = contexts.get(0).getBean(PlayerRepository.class)
+				.save(new Player(null, "gapPlayer", "password", "gap@test.com", null));
+		CountDownLatch saved = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(contexts.get(0).getBean(PlatformTransactionManager.class));
+		Thread slowTransaction = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+			try {
+				contexts.get(0).getBean(GameService.class).addFinishedGame(player.getUsername(), 5, LocalDateTime.now(), null);
+				saved.countDown();
+				commit.await();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		slowTransaction.start();
+		assertTrue(saved.await(MAX_LAG_MILLIS, TimeUnit.MILLISECONDS));
+		// Another player, since the open transaction holds the row lock of the first player's statistics
+		Player otherPlayer = contexts.get(1).getBean(PlayerRepository.class)
+				.save(new Player(null, "gapOtherPlayer", "password", "gapOther@test.com", null));
+
+		// More changes than a batch behind the open transaction reach the other instances while it is open
+		int games = BATCH_SIZE * 3;
+		for (int i = 0; i < games; i++) {
+			contexts.get(1).getBean(GameService.class).addGame(otherPlayer.getId(), 10);
+		}
+		awaitEvents(2, games);
+		assertEquals(games, receivedEvents.get(2).get());
+
+		// The change of the open transaction is published once it commits
+		commit.countDown();
+		slowTransaction.join();
+		awaitEvents(2, games + 1);
+		Thread.sleep(300);
+		assertEquals(games + 1, receivedEvents.get(2).get());
+		assertEquals(games + 1, receivedEvents.get(1).get());
+	}
+
+	@Test
+	public void gamesLoadedByNewNodeAreNotCountedTwiceTest() throws Exception {
+		Player player = contexts.get(0).getBean(PlayerRepository.class)
+				.save(new Player(null, "latePlayer", "password", "late@test.com", null));
+		int games = BATCH_SIZE * 2 + 1;
+		for (int i = 0; i < games; i++) {
+			contexts.get(i % NODES).getBean(GameService.class).addGame(player.getId(), 10 + i);
+		}
+		ConfigurableApplicationContext lateNode = startNode(NODES);
+		// Games saved before the instance started are loaded from the game table and not read again from the change log
+		Thread.sleep(500);
+		assertEquals(games, lateNode.getBean(ScoreDistribution.class).getPercentile(0, null).getGames());
+
+		contexts.get(0).getBean(GameService.class).addGame(player.getId(), 50);
+		awaitEvents(NODES, 1);
+		Thread.sleep(300);
+		assertEquals(games + 1, lateNode.getBean(ScoreDistribution.class).getPercentile(0, null).getGames());
+	}
+
+	private void awaitEvents(int node, int games) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + MAX_LAG_MILLIS;
+		while (System.currentTimeMillis() < deadline && receivedEvents.get(node).get() < games) {
+			Thread.sleep(20);
+		}
+	}
+
+	private boolean allReceived(int games) {
+		return receivedEvents.stream().allMatch(counter -> counter.get() >= games);
+	}
+}
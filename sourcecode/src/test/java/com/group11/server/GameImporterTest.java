@@ -0,0 +1,120 @@
+package com.group11.server;
+
+import com.group11.server.dao.GameImportReportDao;
+import com.group11.server.model.Game;
+import com.group11.server.model.Player;
+import com.group11.server.repository.GameRepository;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.GameImporter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that CSV fields are read with their quoting and that an interrupted import resumes only for the same file.
+ */
+public class GameImporterTest {
+
+	private static ConfigurableApplicationContext context;
+	private static GameImporter gameImporter;
+	private static GameRepository gameRepository;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("import", "game-import.chunk-size=2");
+		gameImporter = context.getBean(GameImporter.class);
+		gameRepository = context.getBean(GameRepository.class);
+		PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+		for (String username : List.of("smith, john", "o\"brien", "two\nlines", "resume0", "resume1", "resume2", "resume3", "resume4")) {
+			playerRepository.save(new Player(null, username, "secret", null, null));
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	private static List<Game> gamesOf(String usernamePrefix) {
+		return gameRepository.findAll().stream()
+				.filter(game -> game.getUsername().startsWith(usernamePrefix))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void quotedCsvFieldsTest() throws Exception {
+		Path file = folder.newFile("quoted.csv").toPath();
+		Files.writeString(file, "username,score,endTime,season,mode\n"
+				+ "\"smith, john\",\"10\",2022-05-01,\"s2022\",ranked\n"
+				+ "\"o\"\"brien\",20,2022-05-02,,\n"
+				+ "\"two\n"
+				+ "lines\",30,2022-05-03\n", StandardCharsets.UTF_8);
+
+		GameImportReportDao report = gameImporter.importGames(file);
+
+		assertEquals(3, report.getImported());
+		assertEquals(0, report.getRejected());
+		assertEquals(LocalDate.of(2022, 5, 1), report.getEarliestEndTime());
+		Game smith = gamesOf("smith, john").get(0);
+		assertEquals(10, (int) smith.getScore());
+		assertEquals("s2022", smith.getSeason());
+		assertEquals("ranked", smith.getMode());
+		assertEquals(20, (int) gamesOf("o\"brien").get(0).getScore());
+		assertEquals(30, (int) gamesOf("two\nlines").get(0).getScore());
+	}
+
+	@Test
+	public void resumeAfterLastCommittedChunkTest() throws Exception {
+		Path file = folder.newFile("resume.csv").toPath();
+		StringBuilder content = new StringBuilder("username,score,endTime\n");
+		for (int i = 0; i < 5; i++) {
+			content.append("resume").append(i).append(',').append(i).append(",2022-05-0").append(i + 1).append('\n');
+		}
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		assertEquals(5, gameImporter.importGames(file).getImported());
+
+		// Turns the finished import into one that stopped after its first chunk of 2 games
+		TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		transactionTemplate.executeWithoutResult(status -> {
+			EntityManager entityManager = context.getBean(EntityManager.class);
+			entityManager.createQuery("UPDATE GameImportCheckpoint c SET c.lines = 3, c.imported = 2 WHERE c.source LIKE 'resume.csv@%'")
+					.executeUpdate();
+			entityManager.createQuery("DELETE FROM Game g WHERE g.username IN ('resume2', 'resume3', 'resume4')")
+					.executeUpdate();
+		});
+
+		GameImportReportDao resumed = gameImporter.importGames(file);
+		assertEquals(3, resumed.getResumedLines());
+		assertEquals(3, resumed.getImported());
+		assertEquals(5, gamesOf("resume").size());
+		// The games of the first chunk were imported by the stopped run
+		assertEquals(LocalDate.of(2022, 5, 1), resumed.getEarliestEndTime());
+
+		// A finished import of the same file has nothing left to import
+		assertEquals(0, gameImporter.importGames(file).getImported());
+
+		// A changed file with the same name is imported from its start
+		Files.writeString(file, content.append("resume0,9,2022-05-02\n"), StandardCharsets.UTF_8);
+		GameImportReportDao changed = gameImporter.importGames(file);
+		assertEquals(0, changed.getResumedLines());
+		assertEquals(6, changed.getImported());
+	}
+}
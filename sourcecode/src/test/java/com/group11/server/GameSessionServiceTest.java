@@ -0,0 +1,90 @@
+package com.group11.server;
+
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.GameService;
+import com.group11.server.service.GameSessionServiceImpl;
+import com.group11.server.service.LeaderboardRangeIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that sessions are finished once, never after they expired, and kept when their game cannot be saved.
+ */
+public class GameSessionServiceTest {
+
+	private static final long PLAYER_ID = 1L;
+
+	private GameService gameService;
+	private PlayerRepository playerRepository;
+
+	@Before
+	public void setUp() {
+		gameService = mock(GameService.class);
+		playerRepository = mock(PlayerRepository.class);
+		when(playerRepository.findById(PLAYER_ID))
+				.thenReturn(Optional.of(new Player(PLAYER_ID, "sessionPlayer", "secret", "session@test.com", null)));
+	}
+
+	private GameSessionServiceImpl sessionService(long timeoutSeconds) {
+		return new GameSessionServiceImpl(gameService, playerRepository, mock(LeaderboardRangeIndex.class),
+				new SimpleMeterRegistry(), timeoutSeconds, 10);
+	}
+
+	@Test
+	public void finishSavesLastReportedScoreOnceTest() throws Exception {
+		GameSessionServiceImpl sessionService = sessionService(60);
+		String sessionId = sessionService.startSession(PLAYER_ID, null).getSessionId();
+		sessionService.heartbeat(sessionId, 42);
+
+		sessionService.finishSession(sessionId, null);
+
+		verify(gameService).addFinishedGame(eq("sessionPlayer"), eq(42), any(LocalDateTime.class), isNull());
+		assertEquals(0, sessionService.getActiveSessionCount());
+		assertThrows(Exception.class, () -> sessionService.finishSession(sessionId, 50));
+		verify(gameService, times(1)).addFinishedGame(any(), any(), any(), any());
+	}
+
+	@Test
+	public void expiredSessionIsNotFinishedBeforeSweepTest() throws Exception {
+		GameSessionServiceImpl sessionService = sessionService(0);
+		String sessionId = sessionService.startSession(PLAYER_ID, null).getSessionId();
+		Thread.sleep(5);
+
+		assertThrows(Exception.class, () -> sessionService.heartbeat(sessionId, 10));
+		assertThrows(Exception.class, () -> sessionService.finishSession(sessionId, 10));
+		verify(gameService, never()).addFinishedGame(any(), any(), any(), any());
+	}
+
+	@Test
+	public void sessionIsKeptWhenGameCannotBeSavedTest() throws Exception {
+		GameSessionServiceImpl sessionService = sessionService(60);
+		String sessionId = sessionService.startSession(PLAYER_ID, null).getSessionId();
+		doThrow(new IllegalStateException("database down"))
+				.doNothing()
+				.when(gameService).addFinishedGame(any(), any(), any(), any());
+
+		assertThrows(IllegalStateException.class, () -> sessionService.finishSession(sessionId, 7));
+		assertEquals(1, sessionService.getActiveSessionCount());
+
+		sessionService.finishSession(sessionId, 7);
+		assertEquals(0, sessionService.getActiveSessionCount());
+		verify(gameService, times(2)).addFinishedGame(eq("sessionPlayer"), eq(7), any(LocalDateTime.class), isNull());
+	}
+}
@@ -0,0 +1,121 @@
+package com.group11.server;
+
+import com.group11.server.model.Game;
+import com.group11.server.model.Player;
+import com.group11.server.repository.GameRepository;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.GameService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Checks that retried game submissions with the same Idempotency-Key save one game, also when the retries race
+ * each other or arrive after the key left the in-memory window.
+ */
+public class IdempotentGameSubmissionTest {
+
+	private static final int RETRIES = 8;
+
+	private static ConfigurableApplicationContext context;
+	private static GameService gameService;
+	private static GameRepository gameRepository;
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("idempotency");
+		gameService = context.getBean(GameService.class);
+		gameRepository = context.getBean(GameRepository.class);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	private static Player savePlayer(String username) {
+		return context.getBean(PlayerRepository.class)
+				.save(new Player(null, username, "secret", username + "@test.com", null));
+	}
+
+	private static long countGames(String username) {
+		return gameRepository.findAll().stream().map(Game::getUsername).filter(username::equals).count();
+	}
+
+	@Test
+	public void retrySavesOneGameTest() throws Exception {
+		Player player = savePlayer("retryPlayer");
+		Long first = gameService.addGame(player.getId(), 10, "submission-1");
+		Long retry = gameService.addGame(player.getId(), 10, "submission-1");
+		Long other = gameService.addGame(player.getId(), 10, "submission-2");
+
+		assertEquals(first, retry);
+		assertNotEquals(first, other);
+		assertEquals(2, countGames(player.getUsername()));
+	}
+
+	@Test
+	public void concurrentRetriesSaveOneGameTest() throws Exception {
+		Player player = savePlayer("racePlayer");
+		ExecutorService executor = Executors.newFixedThreadPool(RETRIES);
+		Set<Long> gameIds = new HashSet<>();
+		try {
+			List<Callable<Long>> retries = new ArrayList<>();
+			for (int i = 0; i < RETRIES; i++) {
+				retries.add(() -> gameService.addGame(player.getId(), 20, "race"));
+			}
+			for (Future<Long> retry : executor.invokeAll(retries)) {
+				gameIds.add(retry.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, gameIds.size());
+		assertEquals(1, countGames(player.getUsername()));
+	}
+
+	@Test
+	public void retryAfterKeyLeftWindowSavesNothingTest() throws Exception {
+		Player player = savePlayer("latePlayer");
+		Long first = gameService.addGame(player.getId(), 30, "late");
+		context.getBean(CacheManager.class)
+				.getCache(CacheConfig.GAME_IDEMPOTENCY_REGION, String.class, Long.class).clear();
+
+		assertEquals(first, gameService.addGame(player.getId(), 30, "late"));
+		assertEquals(1, countGames(player.getUsername()));
+	}
+
+	@Test
+	public void sameKeyOfAnotherPlayerIsSavedTest() throws Exception {
+		Player player = savePlayer("firstKeyPlayer");
+		Player otherPlayer = savePlayer("secondKeyPlayer");
+
+		assertNotEquals(gameService.addGame(player.getId(), 5, "shared"),
+				gameService.addGame(otherPlayer.getId(), 5, "shared"));
+	}
+
+	@Test
+	public void tooLongKeyIsRejectedTest() {
+		Player player = savePlayer("longKeyPlayer");
+		String key = "k".repeat(Game.IDEMPOTENCY_KEY_MAX_LENGTH + 1);
+
+		assertThrows(Exception.class, () -> gameService.addGame(player.getId(), 5, key));
+		assertEquals(0, countGames(player.getUsername()));
+	}
+}
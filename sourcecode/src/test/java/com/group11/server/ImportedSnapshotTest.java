@@ -0,0 +1,92 @@
+package com.group11.server;
+
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.service.LeaderboardRangeIndex;
+import com.group11.server.service.LeaderboardSnapshotService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.env.MockPropertySource;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that an import runs without web server and snapshot job, and that the snapshots of the periods it imported
+ * games into are taken again.
+ */
+public class ImportedSnapshotTest {
+
+	private static final LocalDate LAST_WEEK_START = LeaderboardPeriod.WEEKLY.getCalendarStart(LocalDate.now()).minusWeeks(1);
+	private static final LocalDate OLD_WEEK_START = LAST_WEEK_START.minusWeeks(10);
+
+	private static ConfigurableApplicationContext context;
+	private static LeaderboardSnapshotService snapshotService;
+	private static LeaderboardRangeIndex leaderboardRangeIndex;
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("importsnapshot",
+				"leaderboard.snapshot.enabled=true",
+				"leaderboard.snapshot.initial-delay-millis=3600000");
+		snapshotService = context.getBean(LeaderboardSnapshotService.class);
+		leaderboardRangeIndex = context.getBean(LeaderboardRangeIndex.class);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	private static void record(String username, int score, LocalDate day) {
+		leaderboardRangeIndex.onGameRecorded(new GameRecordedEvent(username, score, day, null));
+	}
+
+	@Test
+	public void importedPeriodsAreSnapshottedAgainTest() throws Exception {
+		record("alice", 10, OLD_WEEK_START);
+		record("bob", 20, LAST_WEEK_START);
+		snapshotService.snapshotClosedPeriods();
+
+		// An imported game of last week, as the index of a restarted server sees it
+		record("alice", 30, LAST_WEEK_START.plusDays(1));
+		assertEquals("bob", snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START, 10)
+				.getRanking().get(0).getUsername());
+		// Last week's month is deleted too if it is closed
+		assertTrue(snapshotService.deleteSnapshotsFrom(LAST_WEEK_START.plusDays(1)) >= 1);
+		assertThrows(Exception.class, () -> snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START, 10));
+		assertEquals("alice", snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, OLD_WEEK_START, 10)
+				.getRanking().get(0).getUsername());
+
+		snapshotService.snapshotClosedPeriods();
+		assertEquals("alice", snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START, 10)
+				.getRanking().get(0).getUsername());
+	}
+
+	@Test
+	public void importModeTurnsOffWebServerAndSnapshotsTest() {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MockPropertySource()
+				.withProperty("game-import.file", "/data/history.csv")
+				.withProperty("leaderboard.snapshot.enabled", "true"));
+		new GameImportConfig.ImportMode().onApplicationEvent(
+				new ApplicationEnvironmentPreparedEvent(null, new SpringApplication(), new String[0], environment));
+
+		assertEquals("none", environment.getProperty("spring.main.web-application-type"));
+		assertEquals("false", environment.getProperty("leaderboard.snapshot.enabled"));
+
+		StandardEnvironment serverEnvironment = new StandardEnvironment();
+		new GameImportConfig.ImportMode().onApplicationEvent(
+				new ApplicationEnvironmentPreparedEvent(null, new SpringApplication(), new String[0], serverEnvironment));
+		assertFalse(serverEnvironment.containsProperty("spring.main.web-application-type"));
+	}
+}
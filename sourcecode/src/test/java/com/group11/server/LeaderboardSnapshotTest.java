@@ -0,0 +1,94 @@
+package com.group11.server;
+
+import com.group11.server.dao.LeaderboardSnapshotDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.service.LeaderboardRangeIndex;
+import com.group11.server.service.LeaderboardSnapshotService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that closed weeks are snapshotted once, read back by rank and not changed by later games.
+ */
+public class LeaderboardSnapshotTest {
+
+	private static final LocalDate LAST_WEEK_START = LeaderboardPeriod.WEEKLY.getCalendarStart(LocalDate.now()).minusWeeks(1);
+
+	private static ConfigurableApplicationContext context;
+	private static LeaderboardSnapshotService snapshotService;
+	private static LeaderboardRangeIndex leaderboardRangeIndex;
+
+	@BeforeClass
+	public static void setUp() {
+		// The job is enabled but never runs on its own during the test
+		context = TestApplication.start("snapshot",
+				"leaderboard.snapshot.enabled=true",
+				"leaderboard.snapshot.initial-delay-millis=3600000",
+				"leaderboard.snapshot.batch-size=2");
+		snapshotService = context.getBean(LeaderboardSnapshotService.class);
+		leaderboardRangeIndex = context.getBean(LeaderboardRangeIndex.class);
+		record("alice", 10, LAST_WEEK_START);
+		record("bob", 15, LAST_WEEK_START.plusDays(2));
+		record("carol", 30, LAST_WEEK_START.plusDays(6));
+		record("alice", 10, LAST_WEEK_START.plusDays(6));
+		record("dave", 50, LAST_WEEK_START.plusWeeks(1));
+		assertTrue(snapshotService.snapshotClosedPeriods() > 0);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	private static void record(String username, int score, LocalDate day) {
+		leaderboardRangeIndex.onGameRecorded(new GameRecordedEvent(username, score, day, null));
+	}
+
+	@Test
+	public void closedWeekIsRankedTest() throws Exception {
+		LeaderboardSnapshotDao snapshot = snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START.plusDays(3), 10);
+
+		assertEquals(LAST_WEEK_START, snapshot.getPeriodStart());
+		assertEquals(LAST_WEEK_START.plusDays(6), snapshot.getPeriodEnd());
+		assertEquals(3, snapshot.getRanking().size());
+		assertEquals("carol", snapshot.getRanking().get(0).getUsername());
+		assertEquals(1, snapshot.getRanking().get(0).getRank());
+		assertEquals("alice", snapshot.getRanking().get(1).getUsername());
+		assertEquals(20, (int) snapshot.getRanking().get(1).getScore());
+		assertEquals("bob", snapshot.getRanking().get(2).getUsername());
+		assertEquals(3, snapshot.getRanking().get(2).getRank());
+	}
+
+	@Test
+	public void latestClosedWeekIsDefaultTest() throws Exception {
+		LeaderboardSnapshotDao snapshot = snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, null, 2);
+
+		assertEquals(LAST_WEEK_START, snapshot.getPeriodStart());
+		assertEquals(2, snapshot.getRanking().size());
+	}
+
+	@Test
+	public void snapshotIsTakenOnceAndNotChangedTest() throws Exception {
+		record("erin", 100, LAST_WEEK_START.plusDays(1));
+
+		assertEquals(0, snapshotService.snapshotClosedPeriods());
+		LeaderboardSnapshotDao snapshot = snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START, 10);
+		assertEquals(3, snapshot.getRanking().size());
+		assertEquals("carol", snapshot.getRanking().get(0).getUsername());
+	}
+
+	@Test
+	public void openPeriodHasNoSnapshotTest() {
+		assertThrows(Exception.class, () -> snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LocalDate.now(), 10));
+		assertThrows(Exception.class, () -> snapshotService.getSnapshot(LeaderboardPeriod.WEEKLY, LAST_WEEK_START, 0));
+	}
+}
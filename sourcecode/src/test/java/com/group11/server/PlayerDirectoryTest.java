@@ -0,0 +1,95 @@
+package com.group11.server;
+
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the player directory is paged by ID and that player responses never return credentials.
+ */
+public class PlayerDirectoryTest {
+
+	private static ConfigurableApplicationContext context;
+	private static MockMvc mockMvc;
+	private static final List<Long> playerIds = new ArrayList<>();
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("directory");
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+		PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+		for (int i = 0; i < 5; i++) {
+			Player player = playerRepository.save(new Player(null, "directory" + i, "secret", "directory" + i + "@test.com", "token"));
+			playerIds.add(player.getId());
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void getPlayerDirectoryPageTest() throws Exception {
+		mockMvc.perform(get("/api/players")
+						.param("afterId", "0")
+						.param("pageLimit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].id").value(playerIds.get(0)))
+				.andExpect(jsonPath("$[1].id").value(playerIds.get(1)))
+				.andExpect(jsonPath("$[0].password").doesNotExist())
+				.andExpect(jsonPath("$[0].resetPasswordToken").doesNotExist());
+	}
+
+	@Test
+	public void getNextPlayerDirectoryPageTest() throws Exception {
+		mockMvc.perform(get("/api/players")
+						.param("afterId", String.valueOf(playerIds.get(1)))
+						.param("pageLimit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].username").value("directory2"))
+				.andExpect(jsonPath("$[1].username").value("directory3"));
+	}
+
+	@Test
+	public void getLastPlayerDirectoryPageTest() throws Exception {
+		mockMvc.perform(get("/api/players")
+						.param("afterId", String.valueOf(playerIds.get(3)))
+						.param("pageLimit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].username").value("directory4"));
+		mockMvc.perform(get("/api/players")
+						.param("afterId", String.valueOf(playerIds.get(4)))
+						.param("pageLimit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	public void getPlayerWithoutCredentialsTest() throws Exception {
+		mockMvc.perform(get("/api/player")
+						.param("id", String.valueOf(playerIds.get(0))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(playerIds.get(0)))
+				.andExpect(jsonPath("$.username").value("directory0"))
+				.andExpect(jsonPath("$.email").value("directory0@test.com"))
+				.andExpect(jsonPath("$.password").doesNotExist())
+				.andExpect(jsonPath("$.resetPasswordToken").doesNotExist());
+	}
+}
@@ -0,0 +1,85 @@
+package com.group11.server;
+
+import com.group11.server.model.Player;
+import com.group11.server.model.PlayerStats;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.repository.PlayerStatsRepository;
+import com.group11.server.service.GameService;
+import com.group11.server.service.PlayerStatsService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that statistics rows missing for players registered before statistics existed are created without
+ * failing concurrent game submissions, and that a rebuild recomputes them.
+ */
+public class PlayerStatsTest {
+
+	private static final int GAMES = 8;
+
+	private static ConfigurableApplicationContext context;
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("stats");
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void concurrentFirstGamesCreateOneRowTest() throws Exception {
+		// Saved without registering, like players from before statistics, so the player has no statistics row
+		Player player = context.getBean(PlayerRepository.class)
+				.save(new Player(null, "statsPlayer", "secret", "stats@test.com", null));
+		PlayerStatsRepository playerStatsRepository = context.getBean(PlayerStatsRepository.class);
+		assertFalse(playerStatsRepository.existsById(player.getUsername()));
+
+		GameService gameService = context.getBean(GameService.class);
+		ExecutorService executor = Executors.newFixedThreadPool(GAMES);
+		try {
+			List<Callable<Long>> submissions = new ArrayList<>();
+			for (int i = 0; i < GAMES; i++) {
+				submissions.add(() -> gameService.addGame(player.getId(), 10));
+			}
+			for (Future<Long> submission : executor.invokeAll(submissions)) {
+				submission.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		PlayerStats stats = playerStatsRepository.findById(player.getUsername()).orElseThrow();
+		assertEquals(GAMES, stats.getGamesPlayed());
+		assertEquals(GAMES * 10, stats.getTotalScore());
+	}
+
+	@Test
+	public void rebuildCreatesMissingRowsTest() throws Exception {
+		Player player = context.getBean(PlayerRepository.class)
+				.save(new Player(null, "rebuildPlayer", "secret", "rebuild@test.com", null));
+		context.getBean(GameService.class).addGame(player.getId(), 25);
+		PlayerStatsRepository playerStatsRepository = context.getBean(PlayerStatsRepository.class);
+		playerStatsRepository.deleteById(player.getUsername());
+
+		context.getBean(PlayerStatsService.class).rebuildPlayerStats();
+
+		PlayerStats stats = playerStatsRepository.findById(player.getUsername()).orElseThrow();
+		assertEquals(1, stats.getGamesPlayed());
+		assertEquals(25, stats.getBestScore());
+	}
+}
@@ -0,0 +1,89 @@
+package com.group11.server;
+
+import com.group11.server.model.GameChange;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.model.Player;
+import com.group11.server.repository.GameChangeRepository;
+import com.group11.server.repository.PlayerRepository;
+import com.group11.server.service.GameService;
+import com.group11.server.service.ScoreDistribution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a retracted game is taken out of the score distribution of the instance that flagged it and of
+ * the other instances, whatever its score.
+ */
+public class ScoreRetractionTest {
+
+	private static final long MAX_LAG_MILLIS = 5000;
+
+	private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < 2; i++) {
+			contexts.add(TestApplication.start("retraction",
+					"spring.jpa.hibernate.ddl-auto=" + (i == 0 ? "create" : "none"),
+					"score-validation.enabled=false",
+					"cluster.enabled=true",
+					"cluster.node-id=node" + i,
+					"cluster.change-log.poll-millis=50"));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		contexts.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	public void zeroScoreGameIsRetractedTest() throws Exception {
+		Player player = contexts.get(0).getBean(PlayerRepository.class)
+				.save(new Player(null, "zeroPlayer", "password", "zero@test.com", null));
+		GameService gameService = contexts.get(0).getBean(GameService.class);
+		gameService.addGame(player.getId(), 5);
+		Long gameId = gameService.addGame(player.getId(), 0);
+		awaitGames(1, 2);
+		for (ConfigurableApplicationContext context : contexts) {
+			assertEquals(2, context.getBean(ScoreDistribution.class).getHistogram(null, 10).getGames());
+		}
+
+		assertTrue(gameService.retractGame(gameId));
+		assertFalse(gameService.retractGame(gameId));
+		awaitGames(1, 1);
+
+		for (ConfigurableApplicationContext context : contexts) {
+			ScoreDistribution scoreDistribution = context.getBean(ScoreDistribution.class);
+			assertEquals(1, scoreDistribution.getHistogram(null, 10).getGames());
+			assertEquals(1, scoreDistribution.getHistogram(LeaderboardPeriod.WEEKLY, 10).getGames());
+			assertEquals(1, scoreDistribution.getPercentile(0, LeaderboardPeriod.MONTHLY).getGames());
+			// Only the game scoring 5 is left, so no game scores 0 or less
+			assertEquals(0, scoreDistribution.getPercentile(0, null).getPercentile(), 0);
+		}
+		List<GameChange> changes = contexts.get(0).getBean(GameChangeRepository.class).findAll();
+		GameChange retraction = changes.get(changes.size() - 1);
+		assertEquals(gameId, retraction.getGameId());
+		assertEquals(0, (int) retraction.getScore());
+		assertTrue(retraction.getRetracted());
+	}
+
+	private void awaitGames(int node, long games) throws InterruptedException {
+		ScoreDistribution scoreDistribution = contexts.get(node).getBean(ScoreDistribution.class);
+		long deadline = System.currentTimeMillis() + MAX_LAG_MILLIS;
+		while (System.currentTimeMillis() < deadline && scoreDistribution.getHistogram(null, 10).getGames() != games) {
+			Thread.sleep(20);
+		}
+		// Give a wrong second change a chance to show up
+		Thread.sleep(200);
+	}
+}
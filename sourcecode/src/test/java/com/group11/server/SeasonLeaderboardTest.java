@@ -0,0 +1,94 @@
+package com.group11.server;
+
+import com.group11.server.model.Player;
+import com.group11.server.repository.PlayerRepository;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that only configured seasons and modes are accepted and that their weekly boards answer conditional requests.
+ */
+public class SeasonLeaderboardTest {
+
+	private static ConfigurableApplicationContext context;
+	private static MockMvc mockMvc;
+	private static Player player;
+
+	@BeforeClass
+	public static void setUp() {
+		context = TestApplication.start("season",
+				"leaderboard.seasons=s1,s2",
+				"leaderboard.modes=ranked");
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+		player = context.getBean(PlayerRepository.class)
+				.save(new Player(null, "seasonPlayer", "secret", "season@test.com", null));
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void unknownSeasonOrModeIsRefusedTest() {
+		assertThrows(Exception.class, () -> mockMvc.perform(post("/api/game")
+				.param("playerID", String.valueOf(player.getId()))
+				.param("score", "10")
+				.param("season", "s9")));
+		assertThrows(Exception.class, () -> mockMvc.perform(post("/api/game/start")
+				.param("playerID", String.valueOf(player.getId()))
+				.param("season", "s1")
+				.param("mode", "casual")));
+	}
+
+	@Test
+	public void weeklyBoardAnswersNotModifiedUntilGameIsSavedTest() throws Exception {
+		String eTag = mockMvc.perform(get("/api/leaderboard_weekly")
+						.param("pageLimit", "10")
+						.param("season", "s2")
+						.param("mode", "ranked"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(eTag);
+		mockMvc.perform(get("/api/leaderboard_weekly")
+						.param("pageLimit", "10")
+						.param("season", "s2")
+						.param("mode", "ranked")
+						.header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+
+		mockMvc.perform(post("/api/game")
+						.param("playerID", String.valueOf(player.getId()))
+						.param("score", "25")
+						.param("season", "s2")
+						.param("mode", "ranked"))
+				.andExpect(status().isOk());
+
+		String newETag = mockMvc.perform(get("/api/leaderboard_weekly")
+						.param("pageLimit", "10")
+						.param("season", "s2")
+						.param("mode", "ranked")
+						.header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].username").value("seasonPlayer"))
+				.andExpect(jsonPath("$[0].score").value(25))
+				.andExpect(jsonPath("$[0].season").value("s2"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(eTag, newETag);
+	}
+}
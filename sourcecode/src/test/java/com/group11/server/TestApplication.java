@@ -0,0 +1,44 @@
+package com.group11.server;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the server on a random port against an embedded H2 database, for tests that need the whole application.
+ */
+final class TestApplication {
+
+	private TestApplication() {
+	}
+
+	/**
+	 * @param database   Name of the in-memory database, contexts started with the same name share it
+	 * @param properties Extra properties as name=value, replacing the defaults of the same name
+	 * @return Running application context, to be closed by the test
+	 */
+	static ConfigurableApplicationContext start(String database, String... properties) {
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put("server.port", "0");
+		values.put("management.server.port", "0");
+		values.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		values.put("spring.datasource.driver-class-name", "org.h2.Driver");
+		values.put("spring.datasource.username", "sa");
+		values.put("spring.datasource.password", "");
+		values.put("spring.jpa.hibernate.ddl-auto", "create");
+		values.put("reactive.datasource.url", "r2dbc:mariadb://127.0.0.1:3306/none");
+		values.put("springfox.documentation.enabled", "false");
+		values.put("leaderboard.snapshot.enabled", "false");
+		for (String property : properties) {
+			int separator = property.indexOf('=');
+			values.put(property.substring(0, separator), property.substring(separator + 1));
+		}
+		List<String> args = new ArrayList<>();
+		values.forEach((name, value) -> args.add("--" + name + "=" + value));
+		return new SpringApplicationBuilder(ServerApplication.class).run(args.toArray(new String[0]));
+	}
+}
@@ -0,0 +1,197 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.GameDao;
+import com.group11.server.dao.RankedGameDao;
+import com.group11.server.event.GameRecordedEvent;
+import com.group11.server.model.LeaderboardKey;
+import com.group11.server.model.LeaderboardPeriod;
+import com.group11.server.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks range totals from the prefix sums of player days, the daily rollover of the window rankings
+ * and the bounded set of season and mode boards.
+ */
+public class LeaderboardRangeIndexTest {
+
+	private static final LocalDate TODAY = LocalDate.now();
+	private static final int MAX_BOARDS = 2;
+
+	private LeaderboardRangeIndex index;
+
+	@Before
+	public void setUp() {
+		index = new LeaderboardRangeIndex(mock(GameRepository.class), mock(PlatformTransactionManager.class),
+				mock(GameChangeLog.class), new SimpleMeterRegistry(), MAX_BOARDS, Set.of("s1", "s2", "s3"), Set.of("ranked"));
+	}
+
+	private void record(String username, int score, LocalDate day) {
+		index.onGameRecorded(new GameRecordedEvent(username, score, day, null));
+	}
+
+	@Test
+	public void rangeSumsTest() {
+		record("a", 10, TODAY.minusDays(10));
+		record("a", 5, TODAY.minusDays(3));
+		record("a", 1, TODAY);
+		record("b", 12, TODAY.minusDays(3));
+
+		List<GameDao> lastWeek = index.getLeaderboard(null, TODAY.minusDays(6), TODAY, 10);
+		assertEquals(2, lastWeek.size());
+		assertEquals("b", lastWeek.get(0).getUsername());
+		assertEquals(12, (int) lastWeek.get(0).getScore());
+		assertEquals("a", lastWeek.get(1).getUsername());
+		assertEquals(6, (int) lastWeek.get(1).getScore());
+
+		List<GameDao> allTime = index.getLeaderboard(null, null, null, 10);
+		assertEquals("a", allTime.get(0).getUsername());
+		assertEquals(16, (int) allTime.get(0).getScore());
+
+		List<GameDao> singleDay = index.getLeaderboard(null, TODAY.minusDays(10), TODAY.minusDays(10), 10);
+		assertEquals(1, singleDay.size());
+		assertEquals(10, (int) singleDay.get(0).getScore());
+		assertTrue(index.getLeaderboard(null, TODAY.minusDays(2), TODAY.minusDays(1), 10).isEmpty());
+	}
+
+	@Test
+	public void daysRecordedOutOfOrderTest() {
+		record("a", 1, TODAY);
+		record("a", 2, TODAY.minusDays(5));
+		record("a", 4, TODAY.minusDays(2));
+		record("a", 8, TODAY.minusDays(5));
+		record("a", 16, TODAY.minusDays(20));
+
+		assertEquals(14, (int) index.getLeaderboard(null, TODAY.minusDays(5), TODAY.minusDays(1), 1).get(0).getScore());
+		assertEquals(5, (int) index.getLeaderboard(null, TODAY.minusDays(2), null, 1).get(0).getScore());
+		assertEquals(31, (int) index.getLeaderboard(null, null, TODAY, 1).get(0).getScore());
+		assertEquals(TODAY.minusDays(20), index.getFirstDay());
+	}
+
+	@Test
+	public void pageLimitKeepsTopPlayersTest() {
+		for (int i = 0; i < 20; i++) {
+			record("player" + i, i, TODAY);
+		}
+		List<GameDao> top = index.getLeaderboard(null, null, null, 3);
+		assertEquals(3, top.size());
+		assertEquals("player19", top.get(0).getUsername());
+		assertEquals("player17", top.get(2).getUsername());
+	}
+
+	@Test
+	public void rolloverMovesWindowsTest() {
+		index.rollOver(TODAY);
+		record("a", 10, TODAY.minusDays(6));
+		record("b", 5, TODAY);
+
+		List<RankedGameDao> weekly = index.getAround(null, LeaderboardPeriod.WEEKLY, "b", 5);
+		assertEquals(2, weekly.size());
+		assertEquals("a", weekly.get(0).getUsername());
+
+		LocalDate tomorrow = TODAY.plusDays(1);
+		index.rollOver(tomorrow);
+		weekly = index.getAround(null, LeaderboardPeriod.WEEKLY, "b", 5);
+		assertEquals(1, weekly.size());
+		assertEquals("b", weekly.get(0).getUsername());
+		assertEquals(1, weekly.get(0).getRank());
+		assertTrue(index.getAround(null, LeaderboardPeriod.WEEKLY, "a", 5).isEmpty());
+		assertEquals(2, index.getAround(null, LeaderboardPeriod.MONTHLY, "a", 5).size());
+
+		// Games of the new day are ranked in the new windows
+		index.onGameRecorded(new GameRecordedEvent("c", 7, tomorrow, null));
+		weekly = index.getAround(null, LeaderboardPeriod.WEEKLY, "c", 5);
+		assertEquals("c", weekly.get(0).getUsername());
+		assertEquals(2, weekly.size());
+	}
+
+	@Test
+	public void emptyIndexTest() {
+		assertNull(index.getFirstDay());
+		assertTrue(index.getAround(null, LeaderboardPeriod.WEEKLY, "a", 5).isEmpty());
+		assertTrue(index.getLeaderboard(null, null, null, 5).isEmpty());
+	}
+
+	@Test
+	public void checkKeyAcceptsConfiguredSeasonsAndModesTest() throws Exception {
+		index.checkKey(null);
+		index.checkKey(LeaderboardKey.of("s1", null));
+		index.checkKey(LeaderboardKey.of("s2", "ranked"));
+		index.checkKey(LeaderboardKey.of(null, "ranked"));
+		assertThrows(Exception.class, () -> index.checkKey(LeaderboardKey.of("s4", null)));
+		assertThrows(Exception.class, () -> index.checkKey(LeaderboardKey.of("s1", "casual")));
+	}
+
+	@Test
+	public void gamesOfKeysBeyondMaximumAreOnlyIndexedGloballyTest() throws Exception {
+		for (String season : List.of("s1", "s2", "s3")) {
+			index.onGameRecorded(new GameRecordedEvent("a", 10, TODAY, LeaderboardKey.of(season, null)));
+		}
+
+		assertEquals(1, index.getLeaderboard(LeaderboardKey.of("s1", null), null, null, 10).size());
+		assertEquals(1, index.getLeaderboard(LeaderboardKey.of("s2", null), null, null, 10).size());
+		assertTrue(index.getLeaderboard(LeaderboardKey.of("s3", null), null, null, 10).isEmpty());
+		assertEquals(30, (int) index.getLeaderboard(null, null, null, 10).get(0).getScore());
+	}
+
+	@Test
+	public void topOfKeyedBoardComesFromItsRankingTest() throws Exception {
+		LeaderboardKey key = LeaderboardKey.of("s1", "ranked");
+		index.onGameRecorded(new GameRecordedEvent("a", 10, TODAY, key));
+		index.onGameRecorded(new GameRecordedEvent("b", 30, TODAY, key));
+		index.onGameRecorded(new GameRecordedEvent("c", 20, TODAY.minusDays(20), key));
+		index.onGameRecorded(new GameRecordedEvent("d", 50, TODAY, null));
+
+		List<GameDao> weekly = index.getTop(key, LeaderboardPeriod.WEEKLY, 5);
+		assertEquals(2, weekly.size());
+		assertEquals("b", weekly.get(0).getUsername());
+		assertEquals("s1", weekly.get(0).getSeason());
+		assertEquals("ranked", weekly.get(0).getMode());
+		assertEquals("a", weekly.get(1).getUsername());
+		assertEquals(3, index.getTop(key, LeaderboardPeriod.MONTHLY, 5).size());
+		assertEquals(1, index.getTop(key, LeaderboardPeriod.MONTHLY, 1).size());
+		assertEquals("d", index.getTop(null, LeaderboardPeriod.WEEKLY, 1).get(0).getUsername());
+		assertTrue(index.getTop(LeaderboardKey.of("s2", null), LeaderboardPeriod.WEEKLY, 5).isEmpty());
+	}
+
+	@Test
+	public void playersWithOnlyRetractedGamesAreLeftOutTest() throws Exception {
+		LeaderboardKey key = LeaderboardKey.of("s1", null);
+		index.rollOver(TODAY);
+		index.onGameRecorded(new GameRecordedEvent("cheater", 0, TODAY, key));
+		index.onGameRecorded(new GameRecordedEvent("cheater", 0, TODAY, key, true, null));
+		index.onGameRecorded(new GameRecordedEvent("zero", 0, TODAY, key));
+		index.onGameRecorded(new GameRecordedEvent("both", 8, TODAY.minusDays(1), key));
+		index.onGameRecorded(new GameRecordedEvent("both", 50, TODAY, key));
+		index.onGameRecorded(new GameRecordedEvent("both", 50, TODAY, key, true, null));
+
+		List<GameDao> allTime = index.getLeaderboard(null, null, null, 10);
+		assertEquals(2, allTime.size());
+		assertEquals("both", allTime.get(0).getUsername());
+		assertEquals(8, (int) allTime.get(0).getScore());
+		assertEquals("zero", allTime.get(1).getUsername());
+		assertTrue(index.getLeaderboard(key, TODAY, TODAY, 10).stream().noneMatch(game -> game.getUsername().equals("cheater")));
+		assertEquals(1, index.getLeaderboard(key, TODAY, TODAY, 10).size());
+
+		assertEquals(2, index.getTop(key, LeaderboardPeriod.WEEKLY, 10).size());
+		assertTrue(index.getAround(key, LeaderboardPeriod.WEEKLY, "cheater", 5).isEmpty());
+		assertEquals(2, index.getAround(key, LeaderboardPeriod.WEEKLY, "zero", 5).size());
+
+		// A rebuild of the rankings leaves them out as well
+		index.rollOver(TODAY.plusDays(1));
+		assertTrue(index.getAround(key, LeaderboardPeriod.MONTHLY, "cheater", 5).isEmpty());
+		assertEquals(2, index.getTop(key, LeaderboardPeriod.MONTHLY, 10).size());
+	}
+}
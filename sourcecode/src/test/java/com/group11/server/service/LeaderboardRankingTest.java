@@ -0,0 +1,139 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.RankedGameDao;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks ranks and slices of the ranking treap against a sorted list.
+ */
+public class LeaderboardRankingTest {
+
+	@Test
+	public void aroundListsNeighboursWithRanksTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("a", 10);
+		ranking.put("b", 30);
+		ranking.put("c", 20);
+		ranking.put("d", 40);
+
+		List<RankedGameDao> slice = ranking.around("c", 1);
+		assertEquals(3, slice.size());
+		assertEquals("b", slice.get(0).getUsername());
+		assertEquals(2, slice.get(0).getRank());
+		assertEquals("c", slice.get(1).getUsername());
+		assertEquals(3, slice.get(1).getRank());
+		assertEquals(20, (int) slice.get(1).getScore());
+		assertEquals("a", slice.get(2).getUsername());
+		assertEquals(4, slice.get(2).getRank());
+	}
+
+	@Test
+	public void aroundIsCutAtTheEndsTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("a", 10);
+		ranking.put("b", 20);
+		ranking.put("c", 30);
+
+		List<RankedGameDao> top = ranking.around("c", 5);
+		assertEquals(3, top.size());
+		assertEquals(1, top.get(0).getRank());
+		assertEquals("a", top.get(2).getUsername());
+		assertTrue(ranking.around("unknown", 5).isEmpty());
+	}
+
+	@Test
+	public void equalScoresAreOrderedByUsernameTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("bob", 5);
+		ranking.put("alice", 5);
+		ranking.put("carol", 5);
+
+		List<RankedGameDao> slice = ranking.around("bob", 1);
+		assertEquals("alice", slice.get(0).getUsername());
+		assertEquals("bob", slice.get(1).getUsername());
+		assertEquals(2, slice.get(1).getRank());
+		assertEquals("carol", slice.get(2).getUsername());
+	}
+
+	@Test
+	public void topListsHighestScoresTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("a", 10);
+		ranking.put("b", 30);
+		ranking.put("c", 20);
+
+		List<RankedGameDao> top = ranking.top(2);
+		assertEquals(2, top.size());
+		assertEquals("b", top.get(0).getUsername());
+		assertEquals(1, top.get(0).getRank());
+		assertEquals("c", top.get(1).getUsername());
+		assertEquals(2, top.get(1).getRank());
+		assertEquals(3, ranking.top(10).size());
+		assertTrue(new LeaderboardRanking().top(5).isEmpty());
+	}
+
+	@Test
+	public void putMovesPlayerTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("a", 10);
+		ranking.put("b", 20);
+		ranking.put("a", 30);
+
+		assertEquals(2, ranking.size());
+		assertEquals(1, ranking.around("a", 0).get(0).getRank());
+		assertEquals(2, ranking.around("b", 0).get(0).getRank());
+	}
+
+	@Test
+	public void removeTakesPlayerOutTest() {
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		ranking.put("a", 10);
+		ranking.put("b", 20);
+		ranking.remove("b");
+		ranking.remove("unknown");
+
+		assertEquals(1, ranking.size());
+		assertTrue(ranking.around("b", 1).isEmpty());
+		assertEquals(1, ranking.around("a", 0).get(0).getRank());
+	}
+
+	@Test
+	public void matchesSortedListTest() {
+		Random random = new Random(42);
+		LeaderboardRanking ranking = new LeaderboardRanking();
+		Map<String, Long> scores = new HashMap<>();
+		for (int i = 0; i < 2000; i++) {
+			String username = "player" + random.nextInt(300);
+			long score = random.nextInt(100);
+			ranking.put(username, score);
+			scores.put(username, score);
+		}
+		List<String> expected = new ArrayList<>(scores.keySet());
+		expected.sort(Comparator.comparing((String username) -> scores.get(username)).reversed()
+				.thenComparing(Comparator.naturalOrder()));
+
+		assertEquals(expected.size(), ranking.size());
+		for (int rank = 0; rank < expected.size(); rank += 17) {
+			List<RankedGameDao> slice = ranking.around(expected.get(rank), 3);
+			int from = Math.max(0, rank - 3);
+			int to = Math.min(expected.size(), rank + 4);
+			assertEquals(to - from, slice.size());
+			for (int i = from; i < to; i++) {
+				RankedGameDao ranked = slice.get(i - from);
+				assertEquals(i + 1, ranked.getRank());
+				assertEquals(expected.get(i), ranked.getUsername());
+				assertEquals(scores.get(expected.get(i)).intValue(), (int) ranked.getScore());
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.PlayerStatsDao;
+import com.group11.server.model.PlayerStats;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks how daily game totals are folded into player statistics, in order and out of order.
+ */
+public class PlayerStatsAccumulateTest {
+
+	// A Wednesday
+	private static final LocalDate DAY = LocalDate.of(2024, 5, 15);
+	private static final LocalDate MONDAY = LocalDate.of(2024, 5, 13);
+
+	@Test
+	public void totalsAndBestScoreTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 2, 30, 20, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 5, 5, DAY);
+		assertEquals(3, stats.getGamesPlayed());
+		assertEquals(35, stats.getTotalScore());
+		assertEquals(20, stats.getBestScore());
+		assertEquals(MONDAY, stats.getWeekStart());
+		assertEquals(35, stats.getWeekScore());
+	}
+
+	@Test
+	public void gameWithoutDayOnlyCountsTowardsTotalsTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 10, 10, null);
+		assertEquals(1, stats.getGamesPlayed());
+		assertEquals(10, stats.getTotalScore());
+		assertNull(stats.getWeekStart());
+		assertNull(stats.getLastPlayed());
+		assertEquals(0, stats.getStreak());
+	}
+
+	@Test
+	public void consecutiveDaysExtendStreakTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY);
+		assertEquals(1, stats.getStreak());
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY.plusDays(1));
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY.plusDays(2));
+		assertEquals(3, stats.getStreak());
+		assertEquals(DAY.plusDays(2), stats.getLastPlayed());
+	}
+
+	@Test
+	public void missedDayRestartsStreakTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY.plusDays(1));
+		PlayerStatsServiceImpl.accumulate(stats, 1, 1, 1, DAY.plusDays(3));
+		assertEquals(1, stats.getStreak());
+		assertEquals(DAY.plusDays(3), stats.getLastPlayed());
+	}
+
+	@Test
+	public void olderDayOnlyCountsTowardsTotalsTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 10, 10, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 50, 50, DAY.minusDays(1));
+		PlayerStatsServiceImpl.accumulate(stats, 1, 7, 7, DAY.minusWeeks(1));
+		assertEquals(3, stats.getGamesPlayed());
+		assertEquals(67, stats.getTotalScore());
+		assertEquals(50, stats.getBestScore());
+		assertEquals(60, stats.getWeekScore());
+		assertEquals(DAY, stats.getLastPlayed());
+		assertEquals(1, stats.getStreak());
+	}
+
+	@Test
+	public void newWeekRestartsWeekScoreTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 10, 10, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 4, 4, DAY.plusWeeks(1));
+		assertEquals(MONDAY.plusWeeks(1), stats.getWeekStart());
+		assertEquals(4, stats.getWeekScore());
+	}
+
+	@Test
+	public void outdatedWeekScoreAndStreakAreNotReportedTest() {
+		PlayerStats stats = new PlayerStats("player");
+		PlayerStatsServiceImpl.accumulate(stats, 1, 10, 10, DAY);
+		PlayerStatsServiceImpl.accumulate(stats, 1, 10, 10, DAY.plusDays(1));
+
+		PlayerStatsDao yesterday = PlayerStatsServiceImpl.toDao(stats, DAY.plusDays(2));
+		assertEquals(2, yesterday.getCurrentStreak());
+		assertEquals(20, yesterday.getWeekScore());
+		assertEquals(10, yesterday.getAverageScore(), 0);
+
+		PlayerStatsDao later = PlayerStatsServiceImpl.toDao(stats, DAY.plusDays(7));
+		assertEquals(0, later.getCurrentStreak());
+		assertEquals(0, later.getWeekScore());
+		assertEquals(2, later.getGamesPlayed());
+	}
+}
@@ -0,0 +1,181 @@
+package com.group11.server.service;
+
+import com.group11.server.dao.ScoreValidationReplayDao;
+import com.group11.server.event.GameSubmittedEvent;
+import com.group11.server.model.Game;
+import com.group11.server.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which games the validation workers flag and that a replay never makes live games be dropped.
+ */
+public class ScoreValidationPipelineTest {
+
+	private static final long MAX_WAIT_MILLIS = 5000;
+
+	private GameService gameService;
+	private GameRepository gameRepository;
+	private MeterRegistry meterRegistry;
+	private ScoreValidationPipeline pipeline;
+
+	@Before
+	public void setUp() {
+		gameService = mock(GameService.class);
+		gameRepository = mock(GameRepository.class);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@After
+	public void tearDown() {
+		if (pipeline != null) {
+			pipeline.stop();
+		}
+	}
+
+	private ScoreValidationPipeline pipeline(int queueCapacity, int maxGamesPerMinute) {
+		pipeline = new ScoreValidationPipeline(gameService, gameRepository, meterRegistry, true, 1, queueCapacity,
+				3, 5, 10, maxGamesPerMinute, 100_000, 1000);
+		return pipeline;
+	}
+
+	@Test
+	public void outlierIsRetractedTest() throws Exception {
+		pipeline(100, 1000).start();
+		for (long id = 1; id <= 10; id++) {
+			pipeline.onGameSubmitted(new GameSubmittedEvent(id, "steady", 10));
+		}
+		pipeline.onGameSubmitted(new GameSubmittedEvent(11L, "steady", 1000));
+		pipeline.onGameSubmitted(new GameSubmittedEvent(12L, "steady", 200_000));
+		awaitChecked(12);
+
+		verify(gameService).retractGame(11L);
+		verify(gameService).retractGame(12L);
+		verify(gameService, never()).retractGame(10L);
+		assertEquals(2, checked("live", "flagged"), 0);
+	}
+
+	@Test
+	public void tooManyGamesPerMinuteAreRetractedWhateverTheirScoreTest() throws Exception {
+		pipeline(100, 3).start();
+		for (long id = 1; id <= 4; id++) {
+			pipeline.onGameSubmitted(new GameSubmittedEvent(id, "fast", 0));
+		}
+		awaitChecked(4);
+
+		verify(gameService).retractGame(4L);
+		verify(gameService, never()).retractGame(3L);
+	}
+
+	@Test
+	public void replayDoesNotCrowdOutLiveGamesTest() throws Exception {
+		List<Game> games = new ArrayList<>();
+		for (long id = 1; id <= 10; id++) {
+			Game game = new Game();
+			game.setId(id);
+			game.setUsername("replayed");
+			game.setScore(10);
+			games.add(game);
+		}
+		when(gameRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(games, List.of());
+		pipeline(2, 1000);
+
+		// Workers are not started yet, so the replay fills its queue and waits
+		CompletableFuture<ScoreValidationReplayDao> replay = CompletableFuture.supplyAsync(() -> {
+			try {
+				return pipeline.replay(false);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(200);
+		assertFalse(replay.isDone());
+		pipeline.onGameSubmitted(new GameSubmittedEvent(100L, "live", 10));
+		pipeline.onGameSubmitted(new GameSubmittedEvent(101L, "live", 10));
+
+		pipeline.start();
+		ScoreValidationReplayDao result = replay.get(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		awaitChecked(12);
+		assertEquals(0, meterRegistry.counter("score.validation.dropped").count(), 0);
+		assertEquals(2, checked("live", "accepted"), 0);
+		assertEquals(10, checked("replay", "accepted"), 0);
+		assertEquals(10, result.getGames());
+	}
+
+	@Test
+	public void dryRunReplayCountsWithoutRetractingTest() throws Exception {
+		List<Game> games = new ArrayList<>();
+		for (long id = 1; id <= 7; id++) {
+			Game game = new Game();
+			game.setId(id);
+			game.setUsername("replayed");
+			game.setScore(id == 7 ? 5000 : 10);
+			games.add(game);
+		}
+		when(gameRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(games, List.of());
+		pipeline(100, 1000).start();
+
+		ScoreValidationReplayDao result = pipeline.replay(true);
+		assertEquals(7, result.getGames());
+		assertEquals(1, result.getSuspicious());
+		verify(gameService, never()).retractGame(any());
+	}
+
+	@Test
+	public void outlierNeedsEnoughGamesTest() {
+		ScoreValidationPipeline.PlayerScoreStats stats = new ScoreValidationPipeline.PlayerScoreStats(10);
+		for (int i = 0; i < 4; i++) {
+			stats.add(10, 0.2);
+		}
+		assertFalse(stats.isOutlier(1000, 5, 3));
+		stats.add(10, 0.2);
+		assertTrue(stats.isOutlier(1000, 5, 3));
+		// A deviation of at least 1 keeps players who always score the same from being flagged for one more
+		assertFalse(stats.isOutlier(12, 5, 3));
+	}
+
+	@Test
+	public void submissionRateIsCountedPerMinuteTest() {
+		ScoreValidationPipeline.PlayerScoreStats stats = new ScoreValidationPipeline.PlayerScoreStats(2);
+		assertFalse(stats.recordSubmission(0));
+		assertFalse(stats.recordSubmission(1000));
+		assertTrue(stats.recordSubmission(2000));
+		assertFalse(stats.recordSubmission(62_000));
+	}
+
+	private void awaitChecked(int games) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+		while (System.currentTimeMillis() < deadline && checkedTotal() < games) {
+			Thread.sleep(10);
+		}
+		assertEquals(games, checkedTotal(), 0);
+	}
+
+	private double checkedTotal() {
+		return meterRegistry.find("score.validation.games").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	private double checked(String mode, String outcome) {
+		Counter counter = meterRegistry.find("score.validation.games").tags("mode", mode, "outcome", outcome).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
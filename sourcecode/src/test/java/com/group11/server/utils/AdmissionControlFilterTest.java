@@ -0,0 +1,197 @@
+package com.group11.server.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.NestedServletException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the AIMD arithmetic of the adaptive limits and that every admitted request gives its slot back exactly once.
+ */
+public class AdmissionControlFilterTest {
+
+	private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final double DELTA = 1e-9;
+
+	private MeterRegistry meterRegistry;
+	private AdmissionControlFilter filter;
+
+	@Before
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new AdmissionControlFilter(meterRegistry, 0, 0.5, 4, 10, 60_000, 10, 50, 500);
+	}
+
+	private AdmissionControlFilter.AdaptiveLimit limit(int initialLimit, int maxLimit) {
+		return new AdmissionControlFilter.AdaptiveLimit("test", initialLimit, maxLimit, THRESHOLD_NANOS, 0.5, new SimpleMeterRegistry());
+	}
+
+	private void acquire(AdmissionControlFilter.AdaptiveLimit limit, int permits) {
+		for (int i = 0; i < permits; i++) {
+			assertTrue(limit.acquire(0));
+		}
+	}
+
+	@Test
+	public void fastResponsesRaiseLimitOnlyWhenHalfBusyTest() {
+		AdmissionControlFilter.AdaptiveLimit limit = limit(10, 12);
+		acquire(limit, 4);
+		limit.release(0, false);
+		assertEquals(10, limit.getLimit(), DELTA);
+
+		acquire(limit, 7);
+		limit.release(0, false);
+		assertEquals(10.1, limit.getLimit(), DELTA);
+		limit.release(0, false);
+		assertEquals(10.1 + 1 / 10.1, limit.getLimit(), DELTA);
+		assertEquals(8, limit.getInFlight(), DELTA);
+	}
+
+	@Test
+	public void limitStaysWithinBoundsTest() {
+		AdmissionControlFilter.AdaptiveLimit limit = limit(10, 10);
+		acquire(limit, 10);
+		assertFalse(limit.acquire(0));
+		limit.release(0, false);
+		assertEquals(10, limit.getLimit(), DELTA);
+
+		long now = System.nanoTime();
+		for (int i = 0; i < 9; i++) {
+			now += 2 * THRESHOLD_NANOS;
+			limit.release(0, true, now);
+		}
+		assertEquals(1, limit.getLimit(), DELTA);
+		assertEquals(0, limit.getInFlight(), DELTA);
+	}
+
+	@Test
+	public void backoffHappensOncePerThresholdIntervalTest() {
+		AdmissionControlFilter.AdaptiveLimit limit = limit(8, 10);
+		acquire(limit, 4);
+		long now = System.nanoTime();
+
+		limit.release(2 * THRESHOLD_NANOS, false, now);
+		assertEquals(4, limit.getLimit(), DELTA);
+		limit.release(0, true, now + THRESHOLD_NANOS / 2);
+		assertEquals(4, limit.getLimit(), DELTA);
+		limit.release(2 * THRESHOLD_NANOS, false, now + THRESHOLD_NANOS + 1);
+		assertEquals(2, limit.getLimit(), DELTA);
+		assertEquals(1, limit.getInFlight(), DELTA);
+	}
+
+	@Test
+	public void requestOverLimitIsRejectedTest() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			startAsync();
+		}
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request(), response, (req, res) -> {
+			throw new AssertionError("Request over the limit must not run");
+		});
+		assertEquals(503, response.getStatus());
+		assertEquals("1", response.getHeader("Retry-After"));
+		assertEquals(4, inFlight(), DELTA);
+	}
+
+	@Test
+	public void databaseExceptionReleasesAndLowersLimitTest() {
+		FilterChain chain = (req, res) -> {
+			throw new NestedServletException("Request processing failed", new QueryTimeoutException("timeout"));
+		};
+		assertThrows(NestedServletException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(), chain));
+		assertEquals(0, inFlight(), DELTA);
+		assertEquals(2, limitValue(), DELTA);
+	}
+
+	@Test
+	public void validationExceptionReleasesWithoutLoweringLimitTest() {
+		FilterChain chain = (req, res) -> {
+			throw new NestedServletException("Request processing failed", new Exception("Page limit should be positive."));
+		};
+		assertThrows(NestedServletException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(), chain));
+		assertEquals(0, inFlight(), DELTA);
+		assertEquals(4, limitValue(), DELTA);
+	}
+
+	@Test
+	public void serverErrorStatusLowersLimitTest() throws Exception {
+		filter.doFilter(request(), new MockHttpServletResponse(), (req, res) -> ((MockHttpServletResponse) res).setStatus(500));
+		assertEquals(0, inFlight(), DELTA);
+		assertEquals(2, limitValue(), DELTA);
+	}
+
+	@Test
+	public void asyncTimeoutReleasesOnceTest() throws Exception {
+		MockAsyncContext asyncContext = startAsync();
+		assertEquals(1, inFlight(), DELTA);
+
+		for (AsyncListener listener : asyncContext.getListeners()) {
+			listener.onTimeout(new AsyncEvent(asyncContext));
+		}
+		assertEquals(0, inFlight(), DELTA);
+		assertEquals(2, limitValue(), DELTA);
+
+		asyncContext.complete();
+		assertEquals(0, inFlight(), DELTA);
+	}
+
+	@Test
+	public void asyncClientErrorReleasesWithoutLoweringLimitTest() throws Exception {
+		MockAsyncContext asyncContext = startAsync();
+
+		for (AsyncListener listener : asyncContext.getListeners()) {
+			listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+		}
+		asyncContext.complete();
+		assertEquals(0, inFlight(), DELTA);
+		assertEquals(4, limitValue(), DELTA);
+	}
+
+	@Test
+	public void serverFailuresAreFoundInCausesTest() {
+		assertTrue(AdmissionControlFilter.isServerFailure(new ServletException(new RuntimeException(new SQLException()))));
+		assertTrue(AdmissionControlFilter.isServerFailure(new TimeoutException()));
+		assertFalse(AdmissionControlFilter.isServerFailure(new Exception("Player does not exist")));
+		assertFalse(AdmissionControlFilter.isServerFailure(null));
+	}
+
+	private MockHttpServletRequest request() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/leaderboard_weekly");
+		request.setAsyncSupported(true);
+		return request;
+	}
+
+	private MockAsyncContext startAsync() throws Exception {
+		MockHttpServletRequest request = request();
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+		return (MockAsyncContext) request.getAsyncContext();
+	}
+
+	private double inFlight() {
+		return meterRegistry.get("admission.in_flight").tag("endpoint", "leaderboard").gauge().value();
+	}
+
+	private double limitValue() {
+		return meterRegistry.get("admission.limit").tag("endpoint", "leaderboard").gauge().value();
+	}
+}